@@ -0,0 +1,44 @@
+package com.kinnarastudio.kecakplugins.form.validator.benchmark;
+
+import com.kinnarastudio.kecakplugins.form.validator.MimeTypeDetector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileTypeValidatorBenchmark {
+    @Param({"1024", "1048576", "33554432"})
+    public int fileSize;
+
+    @Param({"1", "4", "16"})
+    public int fileCount;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    /**
+     * metadata and content use the detection cache as configured, cold drops the cache before every validation
+     */
+    @Param({"metadata", "content", "cold"})
+    public String cache;
+
+    private ValidatorFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixtures.fileType(fileSize, fileCount, parallel, "cold".equals(cache) ? "metadata" : cache);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        if ("cold".equals(cache)) {
+            MimeTypeDetector.getCache().invalidateAll();
+        }
+        return fixture.validate();
+    }
+}
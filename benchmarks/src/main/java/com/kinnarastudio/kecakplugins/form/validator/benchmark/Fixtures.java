@@ -0,0 +1,231 @@
+package com.kinnarastudio.kecakplugins.form.validator.benchmark;
+
+import com.kinnarastudio.kecakplugins.form.validator.*;
+import org.joget.apps.form.model.*;
+import org.joget.commons.util.FileManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Builds validators the way Kecak configures them, without application context.
+ * Plugin lookups through PluginManager are replaced by overriding the protected factory methods.
+ */
+public final class Fixtures {
+    public final static String[] VALIDATORS = {"fileType", "dateTime", "optionsValue", "valuesMatcher", "multiField"};
+
+    private final static byte[] PDF_HEADER = "%PDF-1.7\n%âãÏÓ\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param name one of {@link #VALIDATORS}
+     * @return fixture with default parameters
+     */
+    public static ValidatorFixture of(String name) {
+        switch (name) {
+            case "fileType":
+                return fileType(64 * 1024, 1, false, "metadata");
+            case "dateTime":
+                return dateTime("between");
+            case "optionsValue":
+                return optionsValue(1000, true);
+            case "valuesMatcher":
+                return valuesMatcher("any");
+            case "multiField":
+                return multiField(8, false);
+            default:
+                throw new IllegalArgumentException("Unknown validator [" + name + "]");
+        }
+    }
+
+    /**
+     * PDF files written to the temporary upload directory, so they are resolved the same way as fresh uploads
+     *
+     * @param fileSize  bytes per file
+     * @param fileCount number of files
+     * @param parallel  detect files in parallel
+     * @param cacheKey  detection cache key, metadata or content
+     * @return fixture
+     */
+    public static ValidatorFixture fileType(int fileSize, int fileCount, boolean parallel, String cacheKey) {
+        final String directory = "benchmark-" + UUID.randomUUID();
+        final File baseDirectory = new File(FileManager.getBaseDirectory(), directory);
+        if (!baseDirectory.mkdirs()) {
+            throw new IllegalStateException("Cannot create [" + baseDirectory + "]");
+        }
+        baseDirectory.deleteOnExit();
+
+        final String[] paths = new String[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            final File file = new File(baseDirectory, "file-" + i + ".pdf");
+            writeFile(file, fileSize);
+            paths[i] = directory + "/" + file.getName();
+        }
+
+        final FileTypeValidator validator = new FileTypeValidator();
+        validator.setProperty("includes", new Object[]{Map.of("mimeType", "application/pdf"), Map.of("mimeType", "image/*")});
+        validator.setProperty("excludes", new Object[0]);
+        validator.setProperty("parallel", String.valueOf(parallel));
+        validator.setProperty("cacheKey", cacheKey);
+
+        return new ValidatorFixture(validator, new StubFileElement("attachment"), new FormData(), paths);
+    }
+
+    /**
+     * @param operator exact, before, after or between
+     * @return fixture with a valid date
+     */
+    public static ValidatorFixture dateTime(String operator) {
+        final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        final LocalDate today = LocalDate.now();
+        final String value = "exact".equals(operator) ? "2020-01-01" : today.format(formatter);
+
+        final DateTimeValidator validator = new DateTimeValidator();
+        validator.setProperty("dateFormat", "yyyy-MM-dd");
+        validator.setProperty("operator", operator);
+        switch (operator) {
+            case "exact":
+                validator.setProperty("dateFrom", "2020-01-01");
+                break;
+            case "before":
+                validator.setProperty("dateTo", today.plusDays(1).format(formatter));
+                break;
+            case "after":
+                validator.setProperty("dateFrom", today.minusDays(1).format(formatter));
+                break;
+            default:
+                validator.setProperty("dateFrom", today.minusDays(1).format(formatter));
+                validator.setProperty("dateTo", today.plusDays(1).format(formatter));
+        }
+        validator.setProperty("errorMessage", "Invalid date");
+
+        return new ValidatorFixture(validator, new StubElement("date"), new FormData(), new String[]{value});
+    }
+
+    /**
+     * @param domainSize   number of options loaded by the binder
+     * @param cacheOptions cache option domain between submissions
+     * @return fixture submitting an option from the middle of the domain
+     */
+    public static ValidatorFixture optionsValue(int domainSize, boolean cacheOptions) {
+        final StubOptionsBinder binder = new StubOptionsBinder(domainSize);
+        final OptionsValueValidator validator = new OptionsValueValidator() {
+            @Override
+            protected FormLoadOptionsBinder getOptionsBinder() {
+                return binder;
+            }
+        };
+        validator.setProperty("options", new FormRowSet());
+        validator.setProperty("optionsBinder", Map.of(
+                "className", StubOptionsBinder.class.getName(),
+                "properties", Map.of("size", String.valueOf(domainSize))));
+        validator.setProperty("cacheOptions", String.valueOf(cacheOptions));
+
+        return new ValidatorFixture(validator, new StubElement("option"), new FormData(), new String[]{"option-" + domainSize / 2});
+    }
+
+    /**
+     * @param matchType all, any, none or regex
+     * @return fixture with element values and configured values of 16 items each
+     */
+    public static ValidatorFixture valuesMatcher(String matchType) {
+        final String[] values = IntStream.range(0, 16)
+                .mapToObj(i -> "value" + i)
+                .toArray(String[]::new);
+
+        final ValuesMatcherValidator validator = new ValuesMatcherValidator();
+        validator.setProperty("matchType", matchType);
+        validator.setProperty("withValues", "regex".equals(matchType)
+                ? "^value[0-9]+$"
+                : Arrays.stream(values).skip(8).collect(Collectors.joining(";")));
+        validator.setProperty("errorMessage", "Unmatched values");
+
+        return new ValidatorFixture(validator, new StubElement("matched"), new FormData(), values);
+    }
+
+    /**
+     * @param fieldCount number of fields checked for duplicates
+     * @param formWide   form-wide mode
+     * @return fixture where all fields hold distinct values
+     */
+    public static ValidatorFixture multiField(int fieldCount, boolean formWide) {
+        final FormData formData = multiFieldSubmission(fieldCount);
+        final Form form = new Form();
+        form.setProperty("id", "form");
+
+        final List<Element> children = new ArrayList<>();
+        final Object[] elements = new Object[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            final StubElement field = new StubElement("field" + i);
+            field.setParent(form);
+            children.add(field);
+            elements[i] = Map.of("name", "field" + i);
+        }
+
+        final StubElement element = new StubElement("unique");
+        element.setParent(form);
+        children.add(element);
+        form.setChildren(children);
+
+        final MultiFieldValidator validator = new MultiFieldValidator();
+        validator.setProperty("elements", elements);
+        validator.setProperty("formWide", String.valueOf(formWide));
+
+        return new ValidatorFixture(validator, element, formData, new String[]{"unique"});
+    }
+
+    /**
+     * @param fieldCount number of fields checked for duplicates
+     * @return new submission of the form built by {@link #multiField(int, boolean)}
+     */
+    public static FormData multiFieldSubmission(int fieldCount) {
+        final FormData formData = new FormData();
+        for (int i = 0; i < fieldCount; i++) {
+            formData.addRequestParameterValues("field" + i, new String[]{"value" + i + ";shared" + i});
+        }
+        formData.addRequestParameterValues("unique", new String[]{"unique"});
+        return formData;
+    }
+
+    /**
+     * @param inner fixture of the negated validator
+     * @return fixture negating inner validator on the same element and values
+     */
+    public static ValidatorFixture negation(ValidatorFixture inner) {
+        final FormValidator innerValidator = inner.getValidator();
+        final NegationValidator validator = new NegationValidator() {
+            @Override
+            protected FormValidator getInnerValidator() {
+                return innerValidator;
+            }
+        };
+        validator.setProperty("errorMessage", "Value must not be valid");
+
+        return new ValidatorFixture(validator, inner.getElement(), inner.getFormData(), inner.getValues());
+    }
+
+    private static void writeFile(File file, int size) {
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            out.write(PDF_HEADER, 0, Math.min(size, PDF_HEADER.length));
+
+            final byte[] filler = new byte[8192];
+            Arrays.fill(filler, (byte) ' ');
+            for (int written = PDF_HEADER.length; written < size; written += filler.length) {
+                out.write(filler, 0, Math.min(filler.length, size - written));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        file.deleteOnExit();
+    }
+}
@@ -0,0 +1,34 @@
+package com.kinnarastudio.kecakplugins.form.validator.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultiFieldValidatorBenchmark {
+    @Param({"2", "8", "32", "128"})
+    public int fieldCount;
+
+    @Param({"false", "true"})
+    public boolean formWide;
+
+    private ValidatorFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixtures.multiField(fieldCount, formWide);
+    }
+
+    /**
+     * Each invocation is a new submission, so per-submission indexes are rebuilt as they would be in production
+     */
+    @Benchmark
+    public boolean validate() {
+        return fixture.validate(Fixtures.multiFieldSubmission(fieldCount));
+    }
+}
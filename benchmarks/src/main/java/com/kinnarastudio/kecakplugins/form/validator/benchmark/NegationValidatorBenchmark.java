@@ -0,0 +1,31 @@
+package com.kinnarastudio.kecakplugins.form.validator.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NegationValidatorBenchmark {
+    /**
+     * Negated validator, see {@link Fixtures#VALIDATORS}
+     */
+    @Param({"fileType", "dateTime", "optionsValue", "valuesMatcher", "multiField"})
+    public String inner;
+
+    private ValidatorFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixtures.negation(Fixtures.of(inner));
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return fixture.validate();
+    }
+}
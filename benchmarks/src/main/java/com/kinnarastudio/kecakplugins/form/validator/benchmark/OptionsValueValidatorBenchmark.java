@@ -0,0 +1,33 @@
+package com.kinnarastudio.kecakplugins.form.validator.benchmark;
+
+import com.kinnarastudio.kecakplugins.form.validator.OptionsValueValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptionsValueValidatorBenchmark {
+    @Param({"10", "1000", "10000", "100000"})
+    public int domainSize;
+
+    @Param({"false", "true"})
+    public boolean cacheOptions;
+
+    private ValidatorFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OptionsValueValidator.invalidateOptionsCache();
+        fixture = Fixtures.optionsValue(domainSize, cacheOptions);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return fixture.validate();
+    }
+}
@@ -0,0 +1,51 @@
+package com.kinnarastudio.kecakplugins.form.validator.benchmark;
+
+import org.joget.apps.form.model.Element;
+import org.joget.apps.form.model.FormData;
+
+import java.util.Map;
+
+/**
+ * Minimal form field, only carries properties
+ */
+public class StubElement extends Element {
+    public StubElement(String id) {
+        setProperty("id", id);
+        setProperty("label", id);
+    }
+
+    @Override
+    public String renderTemplate(FormData formData, Map dataModel) {
+        return "";
+    }
+
+    @Override
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public String getVersion() {
+        return "";
+    }
+
+    @Override
+    public String getDescription() {
+        return "";
+    }
+
+    @Override
+    public String getLabel() {
+        return getName();
+    }
+
+    @Override
+    public String getClassName() {
+        return getClass().getName();
+    }
+
+    @Override
+    public String getPropertyOptions() {
+        return "";
+    }
+}
@@ -0,0 +1,19 @@
+package com.kinnarastudio.kecakplugins.form.validator.benchmark;
+
+import org.joget.apps.form.model.FileDownloadSecurity;
+
+import java.util.Map;
+
+/**
+ * Minimal file upload field
+ */
+public class StubFileElement extends StubElement implements FileDownloadSecurity {
+    public StubFileElement(String id) {
+        super(id);
+    }
+
+    @Override
+    public boolean isDownloadAllowed(Map requestParameters) {
+        return true;
+    }
+}
@@ -0,0 +1,32 @@
+package com.kinnarastudio.kecakplugins.form.validator.benchmark;
+
+import org.joget.apps.form.model.Element;
+import org.joget.apps.form.model.FormData;
+import org.joget.apps.form.model.FormLoadOptionsBinder;
+import org.joget.apps.form.model.FormRow;
+import org.joget.apps.form.model.FormRowSet;
+import org.joget.apps.form.service.FormUtil;
+
+/**
+ * Options binder producing a fixed number of options, values are <code>option-0</code> to <code>option-(size-1)</code>
+ */
+public class StubOptionsBinder implements FormLoadOptionsBinder {
+    private final int size;
+
+    public StubOptionsBinder(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public FormRowSet load(Element element, String primaryKey, FormData formData) {
+        final FormRowSet rowSet = new FormRowSet();
+        rowSet.setMultiRow(true);
+        for (int i = 0; i < size; i++) {
+            final FormRow row = new FormRow();
+            row.setProperty(FormUtil.PROPERTY_VALUE, "option-" + i);
+            row.setProperty(FormUtil.PROPERTY_LABEL, "Option " + i);
+            rowSet.add(row);
+        }
+        return rowSet;
+    }
+}
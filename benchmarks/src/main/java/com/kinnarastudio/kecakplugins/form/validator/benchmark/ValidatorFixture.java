@@ -0,0 +1,60 @@
+package com.kinnarastudio.kecakplugins.form.validator.benchmark;
+
+import org.joget.apps.form.model.Element;
+import org.joget.apps.form.model.FormData;
+import org.joget.apps.form.model.FormValidator;
+
+/**
+ * Configured validator together with the element, submission and values it validates
+ */
+public final class ValidatorFixture {
+    private final FormValidator validator;
+    private final Element element;
+    private final FormData formData;
+    private final String[] values;
+
+    public ValidatorFixture(FormValidator validator, Element element, FormData formData, String[] values) {
+        this.validator = validator;
+        this.element = element;
+        this.formData = formData;
+        this.values = values;
+    }
+
+    /**
+     * Validate once, errors are cleared afterwards so the submission can be reused by the next invocation
+     *
+     * @return validation result
+     */
+    public boolean validate() {
+        final boolean valid = validator.validate(element, formData, values);
+        formData.getFormErrors().clear();
+        formData.getFileErrors().clear();
+        return valid;
+    }
+
+    /**
+     * Validate a different submission of the same form
+     *
+     * @param submission form data
+     * @return validation result
+     */
+    public boolean validate(FormData submission) {
+        return validator.validate(element, submission, values);
+    }
+
+    public FormValidator getValidator() {
+        return validator;
+    }
+
+    public Element getElement() {
+        return element;
+    }
+
+    public FormData getFormData() {
+        return formData;
+    }
+
+    public String[] getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,28 @@
+package com.kinnarastudio.kecakplugins.form.validator.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValuesMatcherValidatorBenchmark {
+    @Param({"all", "any", "none", "regex"})
+    public String matchType;
+
+    private ValidatorFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixtures.valuesMatcher(matchType);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return fixture.validate();
+    }
+}
@@ -2,29 +2,86 @@ package com.kinnarastudio.kecakplugins.form.validator;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.function.Supplier;
+import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
 import org.osgi.framework.ServiceRegistration;
 
 public class Activator implements BundleActivator {
 
     protected Collection<ServiceRegistration> registrationList;
 
+    protected BundleListener bundleListener;
+
     public void start(BundleContext context) {
         registrationList = new ArrayList<ServiceRegistration>();
 
-        //Register plugin here
-        registrationList.add(context.registerService(FileTypeValidator.class.getName(), new FileTypeValidator(), null));
-        registrationList.add(context.registerService(DateTimeValidator.class.getName(), new DateTimeValidator(), null));
-        registrationList.add(context.registerService(MultiFieldValidator.class.getName(), new MultiFieldValidator(), null));
-        registrationList.add(context.registerService(OptionsValueValidator.class.getName(), new OptionsValueValidator(), null));
-        registrationList.add(context.registerService(ValuesMatcherValidator.class.getName(), new ValuesMatcherValidator(), null));
-        registrationList.add(context.registerService(NegationValidator.class.getName(), new NegationValidator(), null));
+        //Register plugin here, instances are created when first requested
+        registrationList.add(register(context, FileTypeValidator.class, FileTypeValidator::new));
+        registrationList.add(register(context, DateTimeValidator.class, DateTimeValidator::new));
+        registrationList.add(register(context, MultiFieldValidator.class, MultiFieldValidator::new));
+        registrationList.add(register(context, OptionsValueValidator.class, OptionsValueValidator::new));
+        registrationList.add(register(context, ValuesMatcherValidator.class, ValuesMatcherValidator::new));
+        registrationList.add(register(context, NegationValidator.class, NegationValidator::new));
+        registrationList.add(register(context, CompositeValidator.class, CompositeValidator::new));
+        registrationList.add(register(context, ValidatorRulesElement.class, ValidatorRulesElement::new));
+
+        UploadPreValidator.start();
+        ValidatorMetrics.register();
+        ValidatorWarmUp.start();
+
+        // cached plugin instances and options may come from a bundle which is being reloaded
+        bundleListener = event -> {
+            switch (event.getType()) {
+                case BundleEvent.STOPPED:
+                case BundleEvent.UPDATED:
+                case BundleEvent.UNINSTALLED:
+                    FormValidators.invalidateAll();
+                    OptionsValueValidator.invalidateOptionsCache(className -> isPackagedIn(event.getBundle(), className));
+                    break;
+                default:
+            }
+        };
+        context.addBundleListener(bundleListener);
     }
 
     public void stop(BundleContext context) {
+        if (bundleListener != null) {
+            context.removeBundleListener(bundleListener);
+        }
+
         for (ServiceRegistration registration : registrationList) {
             registration.unregister();
         }
+
+        ValidatorWarmUp.stop();
+        UploadPreValidator.stop();
+        ValidatorMetrics.unregister();
+        MimeTypeDetector.release();
+        ValidatorExecutors.shutdown();
+        OptionsValueValidator.invalidateOptionsCache();
+        FormValidators.invalidateAll();
+        CompositeValidator.resetStatistics();
+        ValidatorSpecs.invalidateAll();
+    }
+
+    /**
+     * @param bundle    bundle
+     * @param className class name
+     * @return true if the class is packaged in the bundle, also when the bundle is already uninstalled and cannot tell
+     */
+    protected static boolean isPackagedIn(Bundle bundle, String className) {
+        try {
+            return bundle.getEntry(className.replace('.', '/') + ".class") != null;
+        } catch (IllegalStateException e) {
+            return true;
+        }
+    }
+
+    protected <T> ServiceRegistration register(BundleContext context, Class<T> pluginClass, Supplier<T> supplier) {
+        return context.registerService(pluginClass.getName(), new LazyPluginFactory(supplier), null);
     }
 }
\ No newline at end of file
@@ -0,0 +1,168 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.apps.app.model.AppDefinition;
+import org.joget.apps.app.service.AppUtil;
+import org.joget.apps.form.model.Element;
+import org.joget.apps.form.model.FormData;
+import org.joget.apps.form.model.FormValidator;
+import org.joget.workflow.model.service.WorkflowUserManager;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork-join task validating a range of rows of a {@link BatchValidator} batch
+ */
+class BatchTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Batch batch;
+    private final int from;
+    private final int to;
+
+    BatchTask(Batch batch, int from, int to) {
+        this.batch = batch;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from > BatchValidator.BATCH_THRESHOLD) {
+            final int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(batch, from, middle), new BatchTask(batch, middle, to));
+            return;
+        }
+
+        // rows are validated in worker threads, carry over the caller's context
+        batch.context.apply();
+        try {
+            validateRows(batch, from, to);
+        } finally {
+            batch.context.reset();
+        }
+    }
+
+    static void validateRows(Batch batch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            validateRow(batch, i);
+        }
+    }
+
+    /**
+     * Errors are collected in the row's form data and moved to the result. Rows may share one form data,
+     * e.g. rows built from the same request, those are validated one at a time so errors stay with their row
+     */
+    private static void validateRow(Batch batch, int index) {
+        final FormData row = batch.rows.get(index);
+        final String[] values = batch.values.get(index);
+
+        synchronized (row) {
+            final Map<String, String> formErrors = snapshot(row.getFormErrors());
+            final Map<String, String> fileErrors = snapshot(row.getFileErrors());
+
+            final boolean valid = batch.formValidator == null
+                    ? batch.rowValidator.validate(row, values)
+                    : ValidatorMetrics.measure(batch.formValidator, batch.element, () -> batch.rowValidator.validate(row, values));
+
+            batch.result.record(index, valid, moveErrors(row.getFormErrors(), formErrors), moveErrors(row.getFileErrors(), fileErrors));
+        }
+    }
+
+    private static Map<String, String> snapshot(Map<String, String> errors) {
+        return errors == null || errors.isEmpty() ? Map.of() : new HashMap<>(errors);
+    }
+
+    /**
+     * Remove errors added while validating, restore the errors the row had before
+     *
+     * @param errors   current errors of the row
+     * @param previous errors before validating
+     * @return added or changed errors
+     */
+    private static Map<String, String> moveErrors(Map<String, String> errors, Map<String, String> previous) {
+        if (errors == null || errors.equals(previous)) {
+            return Map.of();
+        }
+
+        final Map<String, String> added = errors.entrySet().stream()
+                .filter(e -> !Objects.equals(e.getValue(), previous.get(e.getKey())))
+                .collect(HashMap::new, (m, e) -> m.put(e.getKey(), e.getValue()), HashMap::putAll);
+
+        errors.clear();
+        errors.putAll(previous);
+        return added;
+    }
+
+    /**
+     * Everything shared by the tasks of one batch
+     */
+    static final class Batch {
+        final FormValidator formValidator;
+        final Element element;
+        final BatchValidator.RowValidator rowValidator;
+        final List<FormData> rows;
+        final List<String[]> values;
+        final BatchValidationResult result;
+        final Context context;
+
+        Batch(FormValidator formValidator, Element element, BatchValidator.RowValidator rowValidator,
+              List<FormData> rows, List<String[]> values, BatchValidationResult result, Context context) {
+            this.formValidator = formValidator;
+            this.element = element;
+            this.rowValidator = rowValidator;
+            this.rows = rows;
+            this.values = values;
+            this.result = result;
+            this.context = context;
+        }
+    }
+
+    /**
+     * Thread bound state of the calling thread used by binders and hash variables:
+     * application, current user, locale and request
+     */
+    static final class Context {
+        final AppDefinition appDefinition;
+        final String username;
+        final LocaleContext localeContext;
+        final RequestAttributes requestAttributes;
+
+        private Context(AppDefinition appDefinition, String username, LocaleContext localeContext, RequestAttributes requestAttributes) {
+            this.appDefinition = appDefinition;
+            this.username = username;
+            this.localeContext = localeContext;
+            this.requestAttributes = requestAttributes;
+        }
+
+        static Context capture() {
+            return new Context(AppUtil.getCurrentAppDefinition(), getWorkflowUserManager().getCurrentUsername(),
+                    LocaleContextHolder.getLocaleContext(), RequestContextHolder.getRequestAttributes());
+        }
+
+        void apply() {
+            AppUtil.setCurrentAppDefinition(appDefinition);
+            getWorkflowUserManager().setCurrentThreadUser(username);
+            LocaleContextHolder.setLocaleContext(localeContext);
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+        }
+
+        void reset() {
+            AppUtil.resetAppDefinition();
+            getWorkflowUserManager().clearCurrentThreadUser();
+            LocaleContextHolder.resetLocaleContext();
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        private static WorkflowUserManager getWorkflowUserManager() {
+            return (WorkflowUserManager) AppUtil.getApplicationContext().getBean("workflowUserManager");
+        }
+    }
+}
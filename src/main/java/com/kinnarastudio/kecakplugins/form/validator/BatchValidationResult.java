@@ -0,0 +1,86 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Result of {@link BatchValidator}, validity of every row and errors of invalid rows only
+ */
+public final class BatchValidationResult {
+    private final int size;
+    private final BitSet invalidRows;
+    private final Map<String, String>[] formErrors;
+    private final Map<String, String>[] fileErrors;
+
+    @SuppressWarnings("unchecked")
+    BatchValidationResult(int size) {
+        this.size = size;
+        this.invalidRows = new BitSet(size);
+        this.formErrors = new Map[size];
+        this.fileErrors = new Map[size];
+    }
+
+    /**
+     * Rows are recorded concurrently by fork-join tasks, each row by exactly one task
+     */
+    void record(int row, boolean valid, Map<String, String> rowFormErrors, Map<String, String> rowFileErrors) {
+        if (!rowFormErrors.isEmpty()) {
+            formErrors[row] = rowFormErrors;
+        }
+
+        if (!rowFileErrors.isEmpty()) {
+            fileErrors[row] = rowFileErrors;
+        }
+
+        if (!valid) {
+            // BitSet is not thread safe, rows of different tasks may share a word
+            synchronized (invalidRows) {
+                invalidRows.set(row);
+            }
+        }
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isValid() {
+        return invalidRows.isEmpty();
+    }
+
+    public boolean isValid(int row) {
+        return !invalidRows.get(row);
+    }
+
+    /**
+     * @return indexes of invalid rows, ascending
+     */
+    public IntStream getInvalidRows() {
+        return invalidRows.stream();
+    }
+
+    public int getInvalidCount() {
+        return invalidRows.cardinality();
+    }
+
+    /**
+     * @param row row index
+     * @return form errors of the row, keyed by element parameter name
+     */
+    public Map<String, String> getFormErrors(int row) {
+        return formErrors[row] == null ? Collections.emptyMap() : Collections.unmodifiableMap(formErrors[row]);
+    }
+
+    /**
+     * @param row row index
+     * @return file errors of the row, keyed by element parameter name
+     */
+    public Map<String, String> getFileErrors(int row) {
+        return fileErrors[row] == null ? Collections.emptyMap() : Collections.unmodifiableMap(fileErrors[row]);
+    }
+}
@@ -0,0 +1,94 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.apps.form.model.Element;
+import org.joget.apps.form.model.FormData;
+import org.joget.apps.form.model.FormValidator;
+import org.joget.apps.form.service.FormUtil;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Validate many rows of the same element at once, e.g. during bulk import.
+ *
+ * Configuration dependent setup (properties, formatters, binders, plugin lookups) is done once by {@link #prepareBatch(Element)},
+ * rows are then split across the bundle's fork-join pool. Errors are not left in the rows' form data,
+ * they are returned in a compact {@link BatchValidationResult} instead.
+ */
+public interface BatchValidator {
+    /**
+     * Minimum number of rows validated by one fork-join task
+     */
+    int BATCH_THRESHOLD = 64;
+
+    /**
+     * Prepare validation of one element, the returned validator is shared by all rows and must be thread safe
+     *
+     * @param element element
+     * @return row validator
+     */
+    RowValidator prepareBatch(Element element);
+
+    /**
+     * Rows are validated in pool threads carrying over the caller's application, user, locale and request.
+     * Validators needing more of the caller's thread, such as its persistence session, validate rows in the calling thread.
+     *
+     * @param element element
+     * @return true if rows can be validated in parallel
+     */
+    default boolean isParallelBatch(Element element) {
+        return true;
+    }
+
+    /**
+     * Validate rows, values are read from each row
+     *
+     * @param element element
+     * @param rows    form data of every row
+     * @return validation result
+     */
+    default BatchValidationResult validateBatch(Element element, List<FormData> rows) {
+        final List<String[]> values = rows.stream()
+                .map(row -> FormUtil.getElementPropertyValues(element, row))
+                .collect(Collectors.toList());
+        return validateBatch(element, rows, values);
+    }
+
+    /**
+     * Validate rows
+     *
+     * @param element element
+     * @param rows    form data of every row, rows sharing one form data are validated one at a time
+     * @param values  element values of every row, following rows order
+     * @return validation result
+     */
+    default BatchValidationResult validateBatch(Element element, List<FormData> rows, List<String[]> values) {
+        if (rows.size() != values.size()) {
+            throw new IllegalArgumentException("Number of rows [" + rows.size() + "] and values [" + values.size() + "] differ");
+        }
+
+        final BatchValidationResult result = new BatchValidationResult(rows.size());
+        final BatchTask.Batch batch = new BatchTask.Batch(this instanceof FormValidator ? (FormValidator) this : null,
+                element, prepareBatch(element), rows, values, result, BatchTask.Context.capture());
+
+        if (isParallelBatch(element)) {
+            ValidatorExecutors.getBatchPool().invoke(new BatchTask(batch, 0, rows.size()));
+        } else {
+            BatchTask.validateRows(batch, 0, rows.size());
+        }
+        return result;
+    }
+
+    /**
+     * Validation of one row with configuration prepared in advance
+     */
+    @FunctionalInterface
+    interface RowValidator {
+        /**
+         * @param formData form data of the row, errors are added as in {@link FormValidator#validate(Element, FormData, String[])}
+         * @param values   element values
+         * @return true if valid
+         */
+        boolean validate(FormData formData, String[] values);
+    }
+}
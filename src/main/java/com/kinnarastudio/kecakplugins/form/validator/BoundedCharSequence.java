@@ -0,0 +1,59 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+/**
+ * Char sequence that stops regex matching once deadline has passed.
+ *
+ * Backtracking regex engine reads the input through {@link #charAt(int)}, so checking the clock there
+ * bounds the time spent by a catastrophic backtracking pattern.
+ */
+public class BoundedCharSequence implements CharSequence {
+    // check the clock every this many reads
+    private final static int CHECK_INTERVAL = 1024;
+
+    private final CharSequence source;
+    private final long deadline;
+    private int reads = 0;
+
+    /**
+     * @param source   input
+     * @param deadline {@link System#nanoTime()} based deadline
+     */
+    public BoundedCharSequence(CharSequence source, long deadline) {
+        this.source = source;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public int length() {
+        return source.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (++reads % CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+            throw new TimeoutException();
+        }
+        return source.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new BoundedCharSequence(source.subSequence(start, end), deadline);
+    }
+
+    @Override
+    public String toString() {
+        return source.toString();
+    }
+
+    /**
+     * Thrown when matching exceeds the deadline
+     */
+    public static class TimeoutException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public TimeoutException() {
+            super("Regex matching exceeded time limit");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.apps.form.model.Element;
+import org.json.JSONObject;
+
+/**
+ * Validator whose rule can also be checked in the browser, rules of a form are rendered by {@link ValidatorRulesElement}
+ */
+public interface ClientRuleProvider {
+    /**
+     * @param element validated element
+     * @return rule descriptor, null if the rule cannot be checked in the browser
+     */
+    JSONObject getClientRule(Element element);
+}
@@ -0,0 +1,98 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.apps.app.service.AppUtil;
+import org.joget.apps.form.model.Element;
+import org.joget.apps.form.model.FormValidator;
+import org.joget.apps.form.service.FormUtil;
+import org.json.JSONObject;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Client side rule descriptors, rendered once per form by {@link ValidatorRulesElement} and enforced before submit by
+ * <code>resources/js/validator-rules.js</code>. The browser only blocks a submit when it is sure the rule fails,
+ * server side validation stays authoritative. Disabled with system property <code>kecak.validators.clientRules=false</code>.
+ */
+public final class ClientRules {
+    // plugin resources are served by the name of a registered plugin of this bundle
+    private static final String RUNTIME_PATH = "/plugin/" + ValidatorRulesElement.class.getName() + "/js/validator-rules.js";
+
+    private ClientRules() {
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty("kecak.validators.clientRules"));
+    }
+
+    /**
+     * @param root root form
+     * @return rule descriptors of every field of the form followed by the runtime, empty if there is no rule
+     */
+    public static String render(Element root) {
+        if (root == null || !isEnabled()) {
+            return "";
+        }
+
+        final StringBuilder html = new StringBuilder();
+        appendRules(root, html);
+        if (html.length() == 0) {
+            return "";
+        }
+
+        final String contextPath = Optional.ofNullable(AppUtil.getRequestContextPath()).orElse("");
+        return html.append("<script type=\"text/javascript\" src=\"").append(contextPath).append(RUNTIME_PATH).append("\" defer></script>")
+                .toString();
+    }
+
+    private static void appendRules(Element element, StringBuilder html) {
+        final FormValidator validator = element.getValidator();
+        if (validator instanceof ClientRuleProvider) {
+            final JSONObject rule = ((ClientRuleProvider) validator).getClientRule(element);
+            final String field = FormUtil.getElementParameterName(element);
+            if (rule != null && field != null) {
+                // JSON inside script element, "</" would end the element
+                html.append("<script type=\"application/json\" class=\"kecak-validator-rule\" data-field=\"")
+                        .append(field.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;"))
+                        .append("\">")
+                        .append(rule.toString().replace("</", "<\\/"))
+                        .append("</script>");
+            }
+        }
+
+        final Collection<Element> children = element.getChildren();
+        if (children != null) {
+            children.forEach(child -> appendRules(child, html));
+        }
+    }
+
+    /**
+     * Date patterns the browser runtime can parse: numeric year, month, day, hour, minute, second, millisecond and am/pm marker
+     *
+     * @param pattern {@link java.text.SimpleDateFormat} pattern
+     * @return true if supported
+     */
+    public static boolean isSupportedDatePattern(String pattern) {
+        if (pattern == null || pattern.isEmpty()) {
+            return false;
+        }
+
+        boolean quoted = false;
+        for (int i = 0, length = pattern.length(); i < length; i++) {
+            final char c = pattern.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (!quoted && ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                if ("yMdHhmsSa".indexOf(c) < 0) {
+                    return false;
+                }
+
+                if (c == 'M' && i + 2 < length && pattern.charAt(i + 1) == 'M' && pattern.charAt(i + 2) == 'M') {
+                    // month name
+                    return false;
+                }
+            }
+        }
+        return !quoted;
+    }
+}
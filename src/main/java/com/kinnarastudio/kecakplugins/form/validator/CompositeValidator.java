@@ -0,0 +1,329 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.apps.app.service.AppUtil;
+import org.joget.apps.form.model.Element;
+import org.joget.apps.form.model.FormData;
+import org.joget.apps.form.model.FormValidator;
+import org.joget.plugin.base.PluginManager;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Run several validators on one element with AND / OR short-circuit.
+ *
+ * With adaptive ordering, average cost and failure rate of each validator are measured at runtime and
+ * validators most likely to decide the result cheaply run first.
+ */
+public class CompositeValidator extends FormValidator implements BatchValidator {
+    public final static String LABEL = "Composite Validator";
+
+    /**
+     * Runtime statistics per composite configuration and validator index
+     */
+    private final static LruCache<String, ValidatorStats[]> statistics = new LruCache<>(1000, 0);
+
+    private final ValidatorSpecs.Memo<CompositeValidator, Spec> spec = new ValidatorSpecs.Memo<>(Spec::new);
+
+    @Override
+    public boolean validate(Element element, FormData formData, String[] values) {
+        return ValidatorMetrics.measure(this, element, () -> doValidate(element, formData, values));
+    }
+
+    protected boolean doValidate(Element element, FormData formData, String[] values) {
+        final List<RowValidator> validators = getConfiguredValidators().stream()
+                .map(v -> v == null ? null : (RowValidator) (fd, vs) -> v.validate(element, fd, vs))
+                .collect(Collectors.toList());
+        return doValidate(element, formData, values, validators, getStatistics());
+    }
+
+    /**
+     * Child validators are resolved and prepared once for all rows
+     */
+    @Override
+    public RowValidator prepareBatch(Element element) {
+        final List<RowValidator> validators = getConfiguredValidators().stream()
+                .map(v -> v == null ? null : v instanceof BatchValidator
+                        ? ((BatchValidator) v).prepareBatch(element)
+                        : (RowValidator) (fd, vs) -> v.validate(element, fd, vs))
+                .collect(Collectors.toList());
+        final ValidatorStats[] stats = getStatistics();
+        return (formData, values) -> doValidate(element, formData, values, validators, stats);
+    }
+
+    @Override
+    public boolean isParallelBatch(Element element) {
+        return getValidators().stream().allMatch(v -> v instanceof BatchValidator && ((BatchValidator) v).isParallelBatch(element));
+    }
+
+    /**
+     * @param validators child validators at their configured index, null where a child cannot be resolved
+     * @param stats      runtime statistics by configured index, null to keep configured order
+     */
+    protected boolean doValidate(Element element, FormData formData, String[] values, List<RowValidator> validators, ValidatorStats[] stats) {
+        final String elementId = element.getPropertyString("id");
+        if (validators.stream().allMatch(Objects::isNull)) {
+            return true;
+        }
+
+        final Spec spec = getSpec();
+        final boolean isAnd = !spec.orOperator;
+
+        final String previousFormError = formData.getFormErrors().get(elementId);
+        final String previousFileError = formData.getFileErrors().get(elementId);
+
+        boolean result = isAnd;
+        for (int index : getExecutionOrder(validators.size(), stats, isAnd)) {
+            final RowValidator validator = validators.get(index);
+            if (validator == null) {
+                // unresolved child is skipped, other children keep their index
+                continue;
+            }
+
+            final long start = System.nanoTime();
+            final boolean valid = validator.validate(formData, values);
+            if (stats != null) {
+                stats[index].record(System.nanoTime() - start, valid);
+            }
+
+            if (valid != isAnd) {
+                // short-circuit, a failure decides AND and a success decides OR
+                result = valid;
+                break;
+            }
+        }
+
+        if (result && !isAnd) {
+            // errors of the validators which failed before one succeeded
+            restoreError(formData.getFormErrors(), elementId, previousFormError);
+            restoreError(formData.getFileErrors(), elementId, previousFileError);
+        } else if (!result && !spec.errorMessage.isEmpty()) {
+            formData.addFormError(elementId, spec.errorMessage);
+        }
+
+        return result;
+    }
+
+    /**
+     * @param size  number of validators
+     * @param stats runtime statistics, null to keep configured order
+     * @param isAnd AND operator
+     * @return indexes of validators in execution order
+     */
+    protected int[] getExecutionOrder(int size, ValidatorStats[] stats, boolean isAnd) {
+        if (stats == null) {
+            return IntStream.range(0, size).toArray();
+        }
+
+        // expected cost to reach a decision, ties keep configured order
+        return IntStream.range(0, size)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> stats[i].getScore(isAnd)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * @return runtime statistics of this configuration, one per configured child, null when not adaptive
+     */
+    protected ValidatorStats[] getStatistics() {
+        final Spec spec = getSpec();
+        return spec.adaptive
+                ? statistics.computeIfAbsent(spec.statisticsKey, k -> newStats(spec.validators.size()))
+                : null;
+    }
+
+    /**
+     * @return compiled configuration
+     */
+    protected Spec getSpec() {
+        return spec.get(this);
+    }
+
+    @Override
+    public void setProperty(String property, Object value) {
+        super.setProperty(property, value);
+        spec.clear();
+    }
+
+    @Override
+    public void setProperties(Map<String, Object> properties) {
+        super.setProperties(properties);
+        spec.clear();
+    }
+
+    /**
+     * @return resolved child validators, without those which cannot be resolved
+     */
+    protected List<FormValidator> getValidators() {
+        return getConfiguredValidators().stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return child validators at their configured index, null where a child cannot be resolved
+     */
+    protected List<FormValidator> getConfiguredValidators() {
+        final Spec spec = getSpec();
+        return IntStream.range(0, spec.validators.size())
+                .mapToObj(i -> FormValidators.getValidator(spec.validatorKeys.get(i), spec.validators.get(i)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return validator element select values configured in "validators" grid
+     */
+    protected List<Map<String, Object>> getValidatorProperties() {
+        return Optional.ofNullable(getProperty("validators"))
+                .filter(o -> o instanceof Object[])
+                .map(o -> (Object[]) o)
+                .stream()
+                .flatMap(Arrays::stream)
+                .filter(o -> o instanceof Map)
+                .map(o -> ((Map<String, Object>) o).get("validator"))
+                .filter(o -> o instanceof Map)
+                .map(o -> (Map<String, Object>) o)
+                .collect(Collectors.toList());
+    }
+
+    protected void restoreError(Map<String, String> errors, String elementId, String previousError) {
+        if (errors == null) {
+            return;
+        }
+
+        if (previousError == null) {
+            errors.remove(elementId);
+        } else {
+            errors.put(elementId, previousError);
+        }
+    }
+
+    protected boolean isOrOperator() {
+        return "or".equalsIgnoreCase(getPropertyString("operator"));
+    }
+
+    protected boolean isAdaptive() {
+        return "true".equalsIgnoreCase(getPropertyString("adaptive"));
+    }
+
+    protected String getErrorMessage() {
+        return getPropertyString("errorMessage");
+    }
+
+    /**
+     * Reset runtime statistics of all composite validators
+     */
+    public static void resetStatistics() {
+        statistics.invalidateAll();
+    }
+
+    private static ValidatorStats[] newStats(int size) {
+        return IntStream.range(0, size)
+                .mapToObj(i -> new ValidatorStats())
+                .toArray(ValidatorStats[]::new);
+    }
+
+    @Override
+    public String getElementDecoration() {
+        return getValidators().stream()
+                .map(FormValidator::getElementDecoration)
+                .filter(Objects::nonNull)
+                .filter(s -> !s.isEmpty())
+                .findFirst()
+                .orElse("");
+    }
+
+    @Override
+    public String getName() {
+        return LABEL;
+    }
+
+    @Override
+    public String getVersion() {
+        PluginManager pluginManager = (PluginManager) AppUtil.getApplicationContext().getBean("pluginManager");
+        ResourceBundle resourceBundle = pluginManager.getPluginMessageBundle(getClassName(), "/messages/BuildNumber");
+        String buildNumber = resourceBundle.getString("buildNumber");
+        return buildNumber;
+    }
+
+    @Override
+    public String getDescription() {
+        return getClass().getPackage().getImplementationTitle();
+    }
+
+    @Override
+    public String getLabel() {
+        return LABEL;
+    }
+
+    @Override
+    public String getClassName() {
+        return getClass().getName();
+    }
+
+    @Override
+    public String getPropertyOptions() {
+        return AppUtil.readPluginResource(getClassName(), "/properties/CompositeValidator.json", null, false, "/messages/CompositeValidator");
+    }
+
+    /**
+     * Immutable snapshot of the validator's properties, child validators are kept as configuration
+     * and resolved through {@link FormValidators} so plugin reloads are followed
+     */
+    protected static class Spec {
+        private final List<Map<String, Object>> validators;
+        private final List<String> validatorKeys;
+        private final String statisticsKey;
+        private final boolean orOperator;
+        private final boolean adaptive;
+        private final String errorMessage;
+
+        Spec(CompositeValidator compositeValidator) {
+            this.validators = List.copyOf(compositeValidator.getValidatorProperties());
+            this.validatorKeys = validators.stream().map(PropertiesKey::digest).collect(Collectors.toUnmodifiableList());
+            this.statisticsKey = PropertiesKey.digest(compositeValidator.getProperty("validators"));
+            this.orOperator = compositeValidator.isOrOperator();
+            this.adaptive = compositeValidator.isAdaptive();
+            this.errorMessage = compositeValidator.getErrorMessage();
+        }
+    }
+
+    /**
+     * Exponentially weighted average of cost and failure rate of one validator
+     */
+    protected static class ValidatorStats {
+        private final static double ALPHA = 0.1;
+
+        // keep a small chance of deciding, so validators which never decided are not starved forever
+        private final static double MIN_PROBABILITY = 0.01;
+
+        private double averageNanos = 0;
+        private double failureRate = 0.5;
+        private long count = 0;
+
+        synchronized void record(long nanos, boolean valid) {
+            if (count++ == 0) {
+                averageNanos = nanos;
+            } else {
+                averageNanos += ALPHA * (nanos - averageNanos);
+            }
+            failureRate += ALPHA * ((valid ? 0 : 1) - failureRate);
+        }
+
+        /**
+         * @param isAnd AND operator, failure decides; otherwise success decides
+         * @return average cost divided by probability of deciding the result, lower runs first
+         */
+        synchronized double getScore(boolean isAnd) {
+            if (count == 0) {
+                // not measured yet, run first to learn its cost
+                return 0;
+            }
+
+            final double decidingProbability = isAnd ? failureRate : 1 - failureRate;
+            return averageNanos / Math.max(MIN_PROBABILITY, decidingProbability);
+        }
+    }
+}
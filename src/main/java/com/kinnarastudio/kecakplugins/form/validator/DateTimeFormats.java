@@ -0,0 +1,208 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import java.text.ParsePosition;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalField;
+import java.time.temporal.TemporalQueries;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Cached, immutable {@link DateTimeFormatter} keyed by pattern and locale,
+ * with parsing that follows {@link java.text.SimpleDateFormat} defaults
+ * (missing date fields are 1970-01-01, missing time fields are 00:00:00, default time zone, trailing text is ignored)
+ * and leniency (numbers shorter than the pattern, e.g. <code>2024-1-5</code> for <code>yyyy-MM-dd</code>,
+ * out of range values rolling over, e.g. <code>2024-02-30</code> is <code>2024-03-01</code>, day of week not checked
+ * against the date, two digit years within 80 years before and 20 years after now, <code>S</code> as milliseconds)
+ */
+public final class DateTimeFormats {
+    private static final LruCache<List<Object>, DateTimeFormatter> formatters = new LruCache<>(256, 0);
+
+    /**
+     * Numeric pattern letters of {@link java.text.SimpleDateFormat} and their fields. Week year is read as year,
+     * weeks and day of week are parsed but not used to resolve the date
+     */
+    private static final Map<Character, ChronoField> NUMBER_FIELDS = Map.ofEntries(
+            Map.entry('y', ChronoField.YEAR_OF_ERA),
+            Map.entry('Y', ChronoField.YEAR_OF_ERA),
+            Map.entry('M', ChronoField.MONTH_OF_YEAR),
+            Map.entry('w', ChronoField.ALIGNED_WEEK_OF_YEAR),
+            Map.entry('W', ChronoField.ALIGNED_WEEK_OF_MONTH),
+            Map.entry('D', ChronoField.DAY_OF_YEAR),
+            Map.entry('d', ChronoField.DAY_OF_MONTH),
+            Map.entry('F', ChronoField.ALIGNED_DAY_OF_WEEK_IN_MONTH),
+            Map.entry('u', ChronoField.DAY_OF_WEEK),
+            Map.entry('H', ChronoField.HOUR_OF_DAY),
+            Map.entry('k', ChronoField.CLOCK_HOUR_OF_DAY),
+            Map.entry('K', ChronoField.HOUR_OF_AMPM),
+            Map.entry('h', ChronoField.CLOCK_HOUR_OF_AMPM),
+            Map.entry('m', ChronoField.MINUTE_OF_HOUR),
+            Map.entry('s', ChronoField.SECOND_OF_MINUTE),
+            Map.entry('S', ChronoField.MILLI_OF_SECOND));
+
+    private DateTimeFormats() {
+    }
+
+    /**
+     * @param pattern {@link java.text.SimpleDateFormat} compatible pattern
+     * @param locale  locale
+     * @return cached formatter
+     * @throws IllegalArgumentException if pattern is invalid
+     */
+    public static DateTimeFormatter getFormatter(String pattern, Locale locale) {
+        return formatters.computeIfAbsent(List.of(pattern, locale), k -> {
+            final DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder()
+                    .parseCaseInsensitive()
+                    .parseLenient();
+            appendPattern(builder, pattern, LocalDate.now().minusYears(80));
+            return builder.toFormatter(locale);
+        });
+    }
+
+    /**
+     * Append {@link java.text.SimpleDateFormat} pattern, translating letters whose meaning differs in {@link DateTimeFormatter}.
+     * Numbers take any number of digits unless abutting another number, e.g. <code>yyyyMMdd</code>.
+     * Text takes the full form from four letters on, e.g. <code>MMMMM</code> and <code>EEEEE</code>.
+     *
+     * @param builder      builder
+     * @param pattern      SimpleDateFormat pattern
+     * @param twoDigitBase start of the 100 years two digit years are resolved within
+     * @throws IllegalArgumentException if pattern has an unknown letter or unterminated quote
+     */
+    static void appendPattern(DateTimeFormatterBuilder builder, String pattern, LocalDate twoDigitBase) {
+        boolean inRun = false;
+        for (int i = 0, length = pattern.length(); i < length; ) {
+            final char c = pattern.charAt(i);
+            if (c == '\'') {
+                int end = i + 1;
+                while (end < length && (pattern.charAt(end) != '\'' || (end + 1 < length && pattern.charAt(end + 1) == '\''))) {
+                    end += pattern.charAt(end) == '\'' ? 2 : 1;
+                }
+                if (end >= length) {
+                    throw new IllegalArgumentException("Unterminated quote in pattern [" + pattern + "]");
+                }
+                builder.appendPattern(pattern.substring(i, end + 1));
+                i = end + 1;
+                continue;
+            }
+
+            final int end = tokenEnd(pattern, i);
+            final int count = end - i;
+            final boolean number = isNumber(c, count);
+            // abutting numbers, e.g. "yyMMdd", have fixed widths
+            final boolean abutting = number && end < length && isNumber(pattern.charAt(end), tokenEnd(pattern, end) - end);
+            if (abutting && !inRun) {
+                builder.parseStrict();
+                inRun = true;
+            }
+
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                builder.appendLiteral(pattern.substring(i, end));
+            } else if ((c == 'y' || c == 'Y') && count <= 2) {
+                builder.appendValueReduced(ChronoField.YEAR_OF_ERA, 2, 2, twoDigitBase);
+            } else if (number) {
+                final ChronoField field = NUMBER_FIELDS.get(c);
+                final int width = Math.min(count, 19);
+                if (abutting) {
+                    builder.appendValue(field, width);
+                } else {
+                    builder.appendValue(field, width, 19, SignStyle.NOT_NEGATIVE);
+                }
+            } else if (c == 'M' || c == 'L' || c == 'E' || c == 'G' || c == 'z') {
+                builder.appendPattern(String.valueOf(c).repeat(Math.min(4, count)));
+            } else if (c == 'X') {
+                builder.appendPattern(String.valueOf(c).repeat(Math.min(3, count)));
+            } else if (c == 'a' || c == 'Z') {
+                builder.appendPattern(String.valueOf(c));
+            } else {
+                throw new IllegalArgumentException("Illegal pattern character [" + c + "] in pattern [" + pattern + "]");
+            }
+
+            if (inRun && !abutting) {
+                builder.parseLenient();
+                inRun = false;
+            }
+            i = end;
+        }
+    }
+
+    private static int tokenEnd(String pattern, int start) {
+        int end = start + 1;
+        while (end < pattern.length() && pattern.charAt(end) == pattern.charAt(start)) {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isNumber(char c, int count) {
+        return NUMBER_FIELDS.containsKey(c) && !(c == 'M' && count >= 3);
+    }
+
+    /**
+     * Fields are resolved leniently by {@link #toEpochMillis(TemporalAccessor)}, without cross checks
+     *
+     * @param formatter formatter
+     * @param source    text to parse
+     * @return milliseconds since epoch
+     * @throws DateTimeParseException if text cannot be parsed
+     */
+    public static long parseEpochMillis(DateTimeFormatter formatter, String source) {
+        final ParsePosition position = new ParsePosition(0);
+        final TemporalAccessor parsed = formatter.parseUnresolved(source, position);
+        if (parsed == null || position.getErrorIndex() >= 0 || position.getIndex() == 0) {
+            throw new DateTimeParseException("Text [" + source + "] could not be parsed", source, Math.max(0, position.getErrorIndex()));
+        }
+        return toEpochMillis(parsed);
+    }
+
+    static long toEpochMillis(TemporalAccessor parsed) {
+        if (parsed.isSupported(ChronoField.INSTANT_SECONDS)) {
+            return Instant.from(parsed).toEpochMilli();
+        }
+
+        final long yearOfEra = getLong(parsed, ChronoField.YEAR_OF_ERA, 1970);
+        final long year = getLong(parsed, ChronoField.YEAR, getLong(parsed, ChronoField.ERA, 1) == 0 ? 1 - yearOfEra : yearOfEra);
+
+        // out of range values roll over
+        final LocalDate firstDay = LocalDate.of((int) year, 1, 1);
+        final LocalDate date = parsed.isSupported(ChronoField.DAY_OF_YEAR) && !parsed.isSupported(ChronoField.MONTH_OF_YEAR)
+                ? firstDay.plusDays(getLong(parsed, ChronoField.DAY_OF_YEAR, 1) - 1)
+                : firstDay.plusMonths(getLong(parsed, ChronoField.MONTH_OF_YEAR, 1) - 1)
+                        .plusDays(getLong(parsed, ChronoField.DAY_OF_MONTH, 1) - 1);
+
+        final long hour;
+        if (parsed.isSupported(ChronoField.HOUR_OF_DAY)) {
+            hour = parsed.getLong(ChronoField.HOUR_OF_DAY);
+        } else if (parsed.isSupported(ChronoField.CLOCK_HOUR_OF_DAY)) {
+            final long clockHour = parsed.getLong(ChronoField.CLOCK_HOUR_OF_DAY);
+            hour = clockHour == 24 ? 0 : clockHour;
+        } else {
+            // hour of am/pm without am/pm marker, e.g. pattern "hh:mm", is before noon
+            final long hourOfAmPm = getLong(parsed, ChronoField.HOUR_OF_AMPM, getLong(parsed, ChronoField.CLOCK_HOUR_OF_AMPM, 0) % 12);
+            hour = hourOfAmPm + 12 * getLong(parsed, ChronoField.AMPM_OF_DAY, 0);
+        }
+
+        final LocalDateTime dateTime = date.atStartOfDay()
+                .plusHours(hour)
+                .plusMinutes(getLong(parsed, ChronoField.MINUTE_OF_HOUR, 0))
+                .plusSeconds(getLong(parsed, ChronoField.SECOND_OF_MINUTE, 0))
+                .plusNanos(getLong(parsed, ChronoField.MILLI_OF_SECOND, 0) * 1_000_000L + getLong(parsed, ChronoField.NANO_OF_SECOND, 0));
+
+        final ZoneId zone = parsed.query(TemporalQueries.zone()) != null
+                ? parsed.query(TemporalQueries.zone())
+                : ZoneId.systemDefault();
+
+        return dateTime.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private static long getLong(TemporalAccessor parsed, TemporalField field, long defaultValue) {
+        return parsed.isSupported(field) ? parsed.getLong(field) : defaultValue;
+    }
+}
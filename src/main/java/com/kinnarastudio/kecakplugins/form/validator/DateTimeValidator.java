@@ -1,69 +1,71 @@
 package com.kinnarastudio.kecakplugins.form.validator;
 
-import com.kinnarastudio.commons.Try;
 import org.joget.apps.app.service.AppUtil;
 import org.joget.apps.form.lib.DatePicker;
 import org.joget.apps.form.model.Element;
 import org.joget.apps.form.model.FormData;
 import org.joget.apps.form.model.FormValidator;
+import org.joget.commons.util.LogUtil;
 import org.joget.commons.util.SetupManager;
 import org.joget.plugin.base.PluginManager;
 import org.joget.workflow.util.WorkflowUtil;
+import org.springframework.context.ApplicationContext;
+import org.json.JSONObject;
 import org.springframework.context.i18n.LocaleContextHolder;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
-public class DateTimeValidator extends FormValidator {
+public class DateTimeValidator extends FormValidator implements BatchValidator, ClientRuleProvider {
     public final static String LABEL = "Date Time Validator";
 
+    private final static LruCache<List<Object>, String> datePickerFormats = new LruCache<>(256, 0);
+
+    private static volatile SetupManagerHolder setupManagerHolder;
+
+    private final ValidatorSpecs.Memo<DateTimeValidator, Spec> spec = new ValidatorSpecs.Memo<>(Spec::new);
+
     @Override
     public boolean validate(Element element, FormData formData, String[] values) {
+        return ValidatorMetrics.measure(this, element, () -> doValidate(element, formData, values));
+    }
+
+    protected boolean doValidate(Element element, FormData formData, String[] values) {
+        final DateRule dateRule = getDateRule();
+        return doValidate(element, formData, values, dateRule, getInputFormatter(element, dateRule), getSpec().multiValue);
+    }
+
+    @Override
+    public RowValidator prepareBatch(Element element) {
+        final DateRule dateRule = getDateRule();
+        final DateTimeFormatter inputFormatter = getInputFormatter(element, dateRule);
+        final boolean multiValue = getSpec().multiValue;
+        return (formData, values) -> doValidate(element, formData, values, dateRule, inputFormatter, multiValue);
+    }
+
+    protected boolean doValidate(Element element, FormData formData, String[] values, DateRule dateRule, DateTimeFormatter inputFormatter, boolean multiValue) {
         final String elementId = element.getPropertyString("id");
-        final DateFormat dateFormat = getDateFormat();
-        final Date dateValue = Arrays.stream(values)
+        if (multiValue) {
+            return validateRows(elementId, formData, values, dateRule, inputFormatter);
+        }
+
+        final OptionalLong dateValue = Arrays.stream(values)
                 .filter(Predicate.not(String::isEmpty))
                 .findFirst()
-                .map(Try.onFunction(source -> {
-                    if (element instanceof DatePicker) {
-                        final String elementFormat = getDatePickerFormat((DatePicker) element);
-                        final DateFormat inputFormat = new SimpleDateFormat(getJavaDateFormat(elementFormat));
-                        return inputFormat.parse(source);
-                    } else {
-                        return dateFormat.parse(source);
-                    }
-                }))
-                .orElse(null);
+                .map(source -> parseDate(inputFormatter, source))
+                .orElseGet(OptionalLong::empty);
 
-        if (dateValue == null) {
+        if (dateValue.isEmpty()) {
             formData.addFormError(elementId, "Invalid date");
             return false;
         }
 
-        boolean valid;
-        switch (getOperator()) {
-            case "exact":
-                valid = getDateFrom().equals(dateValue);
-                break;
-
-            case "after":
-                valid = dateValue.after(getDateFrom());
-                break;
-
-            case "before":
-                valid = dateValue.before(getDateTo());
-                break;
-
-            case "between":
-                valid = dateValue.after(getDateFrom()) && dateValue.before(getDateTo());
-                break;
-
-            default:
-                valid = true;
-        }
-
+        final boolean valid = dateRule.test(dateValue.getAsLong());
         if (!valid) {
             formData.addFormError(elementId, getErrorMessage());
         }
@@ -104,22 +106,102 @@ public class DateTimeValidator extends FormValidator {
         return AppUtil.readPluginResource(getClassName(), "/properties/DateTimeValidator.json", null, true, "/messages/DateTimeValidator");
     }
 
-    protected DateFormat getDateFormat() {
-        return new SimpleDateFormat(getPropertyString("dateFormat"));
+    /**
+     * @return compiled configuration
+     */
+    protected Spec getSpec() {
+        return spec.get(this);
     }
 
-    protected Date getDateFrom() {
-        return Optional.of(getPropertyString("dateFrom"))
-                .filter(Predicate.not(String::isEmpty))
-                .map(Try.onFunction(getDateFormat()::parse))
-                .orElseGet(Date::new);
+    @Override
+    public void setProperty(String property, Object value) {
+        super.setProperty(property, value);
+        spec.clear();
     }
 
-    protected Date getDateTo() {
-        return Optional.of(getPropertyString("dateTo"))
-                .filter(Predicate.not(String::isEmpty))
-                .map(Try.onFunction(getDateFormat()::parse))
-                .orElseGet(Date::new);
+    @Override
+    public void setProperties(Map<String, Object> properties) {
+        super.setProperties(properties);
+        spec.clear();
+    }
+
+    /**
+     * Date rule is compiled once per configuration and locale
+     *
+     * @return compiled rule
+     */
+    protected DateRule getDateRule() {
+        return getSpec().getDateRule(getLocale());
+    }
+
+    /**
+     * @param element  element
+     * @param dateRule compiled rule
+     * @return formatter of submitted values, DatePicker's own format or the configured format
+     */
+    protected DateTimeFormatter getInputFormatter(Element element, DateRule dateRule) {
+        return element instanceof DatePicker
+                ? DateTimeFormats.getFormatter(getDatePickerJavaDateFormat((DatePicker) element), getLocale())
+                : dateRule.formatter;
+    }
+
+    /**
+     * Validate every value in one pass, failing rows are reported in a single error
+     *
+     * @return true if every non-empty value is a valid date satisfying the rule
+     */
+    protected boolean validateRows(String elementId, FormData formData, String[] values, DateRule dateRule, DateTimeFormatter inputFormatter) {
+        final int maxReportedRows = 20;
+
+        final StringJoiner failedRows = new StringJoiner(", ");
+        int failedCount = 0;
+        int nonEmptyCount = 0;
+        for (int i = 0, length = values == null ? 0 : values.length; i < length; i++) {
+            final String value = values[i];
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+
+            nonEmptyCount++;
+            final OptionalLong dateValue = parseDate(inputFormatter, value);
+            if (dateValue.isEmpty() || !dateRule.test(dateValue.getAsLong())) {
+                if (failedCount++ < maxReportedRows) {
+                    failedRows.add(String.valueOf(i + 1));
+                }
+            }
+        }
+
+        if (nonEmptyCount == 0) {
+            formData.addFormError(elementId, "Invalid date");
+            return false;
+        }
+
+        if (failedCount > 0) {
+            final String more = failedCount > maxReportedRows ? " and " + (failedCount - maxReportedRows) + " more" : "";
+            formData.addFormError(elementId, getErrorMessage() + " (row " + failedRows + more + ")");
+            return false;
+        }
+
+        return true;
+    }
+
+    protected OptionalLong parseDate(DateTimeFormatter formatter, String source) {
+        try {
+            return OptionalLong.of(DateTimeFormats.parseEpochMillis(formatter, source));
+        } catch (DateTimeException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * @return locale used to parse date, same as {@link SimpleDateFormat} default
+     */
+    protected Locale getLocale() {
+        return Locale.getDefault(Locale.Category.FORMAT);
+    }
+
+    protected boolean isMultiValue() {
+        return "true".equalsIgnoreCase(getPropertyString("multiValue"));
     }
 
     protected String getOperator() {
@@ -135,6 +217,34 @@ public class DateTimeValidator extends FormValidator {
         return "*";
     }
 
+    /**
+     * DatePicker values are sent in DatePicker's own format, as parsed on server
+     *
+     * @return rule descriptor for the browser, null if the date format cannot be parsed by the browser runtime
+     */
+    @Override
+    public JSONObject getClientRule(Element element) {
+        final Spec spec = getSpec();
+        final String format;
+        if (element instanceof DatePicker) {
+            format = getDatePickerJavaDateFormat((DatePicker) element);
+            if (!ClientRules.isSupportedDatePattern(format)) {
+                return null;
+            }
+        } else if (spec.clientRuleSupported) {
+            format = spec.dateFormat;
+        } else {
+            return null;
+        }
+
+        try {
+            return getDateRule().toClientRule(format, spec.multiValue, getErrorMessage());
+        } catch (IllegalArgumentException e) {
+            // invalid pattern, reported on submit
+            return null;
+        }
+    }
+
     /**
      * Copy from {@link DatePicker#getJavaDateFormat(String)}
      *
@@ -174,21 +284,38 @@ public class DateTimeValidator extends FormValidator {
         return javascriptFormat;
     }
 
+    /**
+     * Java date format of DatePicker element, resolution is cached by
+     * DatePicker's format property, locale and <code>dateFormatFollowLocale</code> setting
+     *
+     * @param datePicker element
+     * @return Java date format
+     */
+    protected String getDatePickerJavaDateFormat(DatePicker datePicker) {
+        final String format = datePicker.getPropertyString("format");
+        final Locale locale = LocaleContextHolder.getLocale();
+        final boolean isChineseLocale = locale != null && locale.toString().startsWith("zh");
+        if (format.isEmpty() && isChineseLocale) {
+            WorkflowUtil.getHttpServletRequest().setAttribute("currentLocale", locale);
+        }
+
+        // setting is only relevant when DatePicker's format is empty
+        final String dateFormatFollowLocale = format.isEmpty() && !isChineseLocale ? getDateFormatFollowLocale() : "";
+        return datePickerFormats.computeIfAbsent(Arrays.asList(format, locale, dateFormatFollowLocale),
+                k -> getJavaDateFormat(getDatePickerFormat(format, locale, dateFormatFollowLocale)));
+    }
+
     /**
      * Copy from {@link DatePicker#getFormat()}
      *
      * @return
      */
-    protected String getDatePickerFormat(DatePicker datePicker) {
-        String format = datePicker.getPropertyString("format");
+    protected String getDatePickerFormat(String format, Locale locale, String dateFormatFollowLocale) {
         if (format.isEmpty()) {
-            Locale locale = LocaleContextHolder.getLocale();
             if (locale != null && locale.toString().startsWith("zh")) {
-                WorkflowUtil.getHttpServletRequest().setAttribute("currentLocale", locale);
                 format = "yy-mm-dd";
             } else {
-                SetupManager setupManager = (SetupManager) AppUtil.getApplicationContext().getBean("setupManager");
-                if ("true".equalsIgnoreCase(setupManager.getSettingValue("dateFormatFollowLocale"))) {
+                if ("true".equalsIgnoreCase(dateFormatFollowLocale)) {
                     DateFormat dateInstance = DateFormat.getDateInstance(DateFormat.SHORT, locale);
                     if (dateInstance instanceof SimpleDateFormat) {
                         format = ((SimpleDateFormat) dateInstance).toPattern();
@@ -207,4 +334,155 @@ public class DateTimeValidator extends FormValidator {
         }
         return format;
     }
+
+    protected String getDateFormatFollowLocale() {
+        final ApplicationContext applicationContext = AppUtil.getApplicationContext();
+        SetupManagerHolder holder = setupManagerHolder;
+        if (holder == null || holder.applicationContext != applicationContext) {
+            setupManagerHolder = holder = new SetupManagerHolder(applicationContext);
+        }
+        return String.valueOf(holder.setupManager.getSettingValue("dateFormatFollowLocale"));
+    }
+
+    /**
+     * Immutable snapshot of the validator's properties, date rules are compiled on first use per locale
+     */
+    protected static class Spec {
+        private final String dateFormat;
+        private final String operator;
+        private final String dateFrom;
+        private final String dateTo;
+        private final boolean multiValue;
+        private final boolean clientRuleSupported;
+
+        private final Map<Locale, DateRule> dateRules = new ConcurrentHashMap<>();
+
+        Spec(DateTimeValidator validator) {
+            this.dateFormat = validator.getPropertyString("dateFormat");
+            this.operator = validator.getOperator();
+            this.dateFrom = validator.getPropertyString("dateFrom");
+            this.dateTo = validator.getPropertyString("dateTo");
+            this.multiValue = validator.isMultiValue();
+            this.clientRuleSupported = ClientRules.isSupportedDatePattern(dateFormat);
+        }
+
+        /**
+         * @throws IllegalArgumentException if date format is invalid
+         */
+        DateRule getDateRule(Locale locale) {
+            return dateRules.computeIfAbsent(locale, l -> new DateRule(DateTimeFormats.getFormatter(dateFormat, l), operator, dateFrom, dateTo));
+        }
+    }
+
+    /**
+     * Immutable operator and bounds, static bounds are resolved to epoch milliseconds once
+     */
+    protected static class DateRule {
+        private final DateTimeFormatter formatter;
+        private final String operator;
+        // empty when bound is the current time
+        private final OptionalLong from;
+        private final OptionalLong to;
+
+        DateRule(DateTimeFormatter formatter, String operator, String dateFrom, String dateTo) {
+            this.formatter = formatter;
+            this.operator = operator;
+            this.from = resolveBound(formatter, dateFrom);
+            this.to = resolveBound(formatter, dateTo);
+        }
+
+        /**
+         * @param dateValue milliseconds since epoch
+         * @return true if date satisfies the rule
+         */
+        public boolean test(long dateValue) {
+            switch (operator) {
+                case "exact":
+                    return dateValue == getFrom();
+
+                case "after":
+                    return dateValue > getFrom();
+
+                case "before":
+                    return dateValue < getTo();
+
+                case "between":
+                    return dateValue > getFrom() && dateValue < getTo();
+
+                default:
+                    return true;
+            }
+        }
+
+        long getFrom() {
+            return from.orElseGet(System::currentTimeMillis);
+        }
+
+        long getTo() {
+            return to.orElseGet(System::currentTimeMillis);
+        }
+
+        /**
+         * Browser runtime compares wall-clock times, so bounds are sent as wall-clock of the server's time zone
+         * and the current time as browser's clock shifted by server's offset
+         *
+         * @return client rule descriptor, null if operator is unknown
+         */
+        JSONObject toClientRule(String dateFormat, boolean multiValue, String errorMessage) {
+            if (!List.of("exact", "after", "before", "between").contains(operator)) {
+                return null;
+            }
+
+            final ZoneId zone = ZoneId.systemDefault();
+            final JSONObject rule = new JSONObject();
+            rule.put("type", "dateTime");
+            rule.put("operator", operator);
+            rule.put("format", dateFormat);
+            rule.put("from", toWallClock(from, zone));
+            rule.put("to", toWallClock(to, zone));
+            rule.put("zoneOffset", zone.getRules().getOffset(Instant.now()).getTotalSeconds() * 1000);
+            rule.put("multiValue", multiValue);
+            rule.put("message", errorMessage);
+            return rule;
+        }
+
+        private static Object toWallClock(OptionalLong bound, ZoneId zone) {
+            if (bound.isEmpty()) {
+                return JSONObject.NULL;
+            }
+
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(bound.getAsLong()), zone)
+                    .toInstant(ZoneOffset.UTC)
+                    .toEpochMilli();
+        }
+
+        /**
+         * @return constant bound, or empty for current time when bound is empty or cannot be parsed
+         */
+        private static OptionalLong resolveBound(DateTimeFormatter formatter, String bound) {
+            if (bound.isEmpty()) {
+                return OptionalLong.empty();
+            }
+
+            try {
+                return OptionalLong.of(DateTimeFormats.parseEpochMillis(formatter, bound));
+            } catch (DateTimeException e) {
+                LogUtil.warn(DateTimeValidator.class.getName(), "Invalid date bound [" + bound + "], using current time");
+                return OptionalLong.empty();
+            }
+        }
+    }
+
+    /**
+     * SetupManager bean, looked up once per application context
+     */
+    private static final class SetupManagerHolder {
+        final ApplicationContext applicationContext;
+        final SetupManager setupManager;
+
+        SetupManagerHolder(ApplicationContext applicationContext) {
+            this.applicationContext = applicationContext;
+            this.setupManager = (SetupManager) applicationContext.getBean("setupManager");
+        }
+    }
 }
@@ -1,7 +1,6 @@
 package com.kinnarastudio.kecakplugins.form.validator;
 
 import com.kinnarastudio.commons.Try;
-import org.apache.tika.Tika;
 import org.joget.apps.app.service.AppUtil;
 import org.joget.apps.form.model.Element;
 import org.joget.apps.form.model.FileDownloadSecurity;
@@ -15,30 +14,51 @@ import org.joget.commons.util.ResourceBundleUtil;
 import org.joget.plugin.base.PluginManager;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * File Type Validator
  */
-public class FileTypeValidator extends FormValidator {
+public class FileTypeValidator extends FormValidator implements BatchValidator {
     public final static String LABEL = "File Type Validator";
 
+    private final ValidatorSpecs.Memo<FileTypeValidator, Spec> spec = new ValidatorSpecs.Memo<>(Spec::new);
+
     @Override
     public String getElementDecoration() {
-        return isMandatory() ? "*" : "";
+        return getSpec().mandatory ? "*" : "";
     }
 
     @Override
     public boolean validate(Element element, FormData formData, String[] values) {
+        return ValidatorMetrics.measure(this, element, () -> doValidate(element, formData, values));
+    }
+
+    protected boolean doValidate(Element element, FormData formData, String[] values) {
+        return doValidate(element, formData, values, getMimeTypeMatcher());
+    }
+
+    @Override
+    public RowValidator prepareBatch(Element element) {
+        final MimeTypeMatcher mimeTypeMatcher = getMimeTypeMatcher();
+        return (formData, values) -> doValidate(element, formData, values, mimeTypeMatcher);
+    }
+
+    protected boolean doValidate(Element element, FormData formData, String[] values, MimeTypeMatcher mimeTypeMatcher) {
         final String elementName = FormUtil.getElementParameterName(element);
         if(!(element instanceof FileDownloadSecurity)) {
             formData.addFileError(elementName, "Field is not a File Download Security");
             return false;
         }
 
-        if(isMandatory()) {
+        final Spec spec = getSpec();
+        if(spec.mandatory) {
             boolean isEmpty = Optional.ofNullable(values)
                     .stream()
                     .flatMap(Arrays::stream)
@@ -51,11 +71,9 @@ public class FileTypeValidator extends FormValidator {
             }
         }
 
-        final Set<String> includes = getMimeProperty("includes");
-        final Set<String> excludes = getMimeProperty("excludes");
-
-        final String customErrorMessage = getPropertyString("errorMessage").trim();
-        Optional.ofNullable(values)
+        final String customErrorMessage = spec.errorMessage;
+        final boolean contentHash = spec.cacheByContent;
+        final List<File> files = Optional.ofNullable(values)
                 .map(Arrays::stream)
                 .orElseGet(Stream::empty)
                 .filter(Objects::nonNull)
@@ -69,12 +87,25 @@ public class FileTypeValidator extends FormValidator {
                     return file;
                 }))
                 .filter(Objects::nonNull)
-                .forEach(file -> Stream.of(file)
-                        .map(Try.onFunction(f -> new Tika().detect(f)))
-                        .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(spec.timeout);
+        final Detections detections = spec.parallel && files.size() > 1
+                ? detectInParallel(files, contentHash, spec.maxConcurrency)
+                : null;
+
+        // errors are always reported following the order of uploaded files
+        try {
+            for (int i = 0, size = files.size(); i < size; i++) {
+                final File file = files.get(i);
+                final String mimeType = detections == null
+                        ? detect(file, contentHash, elementName, formData)
+                        : awaitDetection(detections.results.get(i), deadline, elementName, file, formData);
+
+                Optional.ofNullable(mimeType)
                         .map(this::cleanUpMimeType)
-                        .forEach(s -> {
-                            boolean result = (includes.isEmpty() || includes.stream().anyMatch(s::equalsIgnoreCase)) && (excludes.isEmpty() || excludes.stream().noneMatch(s::equalsIgnoreCase));
+                        .ifPresent(s -> {
+                            boolean result = mimeTypeMatcher.test(s);
                             if (!result) {
                                 LogUtil.warn(getClassName(), "Element ["+ elementName + "] : Invalid mime type [" + s + "] for file [" + file.getName()+"]");
                                 if(customErrorMessage.isEmpty()) {
@@ -83,7 +114,14 @@ public class FileTypeValidator extends FormValidator {
                                     formData.addFileError(elementName, file.getName() + " " + customErrorMessage);
                                 }
                             }
-                        }));
+                        });
+            }
+        } finally {
+            if (detections != null) {
+                // stop detections still reading files after deadline
+                detections.cancel();
+            }
+        }
 
         return !formData.getFileErrors().containsKey(elementName);
     }
@@ -121,6 +159,34 @@ public class FileTypeValidator extends FormValidator {
         return AppUtil.readPluginResource(getClassName(), "/properties/FileTypeValidator.json", null, false, "/messages/FileTypeValidator");
     }
 
+    /**
+     * @return compiled configuration
+     */
+    protected Spec getSpec() {
+        return spec.get(this);
+    }
+
+    @Override
+    public void setProperty(String property, Object value) {
+        super.setProperty(property, value);
+        spec.clear();
+    }
+
+    @Override
+    public void setProperties(Map<String, Object> properties) {
+        super.setProperties(properties);
+        spec.clear();
+    }
+
+    /**
+     * Matcher is compiled once per configuration
+     *
+     * @return compiled matcher
+     */
+    protected MimeTypeMatcher getMimeTypeMatcher() {
+        return getSpec().matcher;
+    }
+
     protected Set<String> getMimeProperty(String propertyName) {
         return Optional.ofNullable(getProperty(propertyName))
                 .map(o -> (Object[]) o)
@@ -138,7 +204,159 @@ public class FileTypeValidator extends FormValidator {
         return "true".equalsIgnoreCase(getPropertyString("mandatory"));
     }
 
+    /**
+     * Detect files using the bundle's detection executor, at most <code>maxConcurrency</code> files at a time.
+     * When the executor is saturated, the calling thread detects the files itself.
+     *
+     * @param files          files to detect
+     * @param contentHash    cache detection result by content hash
+     * @param maxConcurrency maximum number of concurrent detections
+     * @return detection results, following the order of files
+     */
+    protected Detections detectInParallel(List<File> files, boolean contentHash, int maxConcurrency) {
+        // files detected by upload pre-validation are already done, unless files are identified by content
+        final List<CompletableFuture<String>> results = files.stream()
+                .map(f -> contentHash ? null : MimeTypeDetector.getDetected(f))
+                .map(detected -> detected == null ? new CompletableFuture<String>() : CompletableFuture.completedFuture(detected))
+                .collect(Collectors.toList());
+
+        final int undetected = (int) results.stream().filter(Predicate.not(CompletableFuture::isDone)).count();
+
+        final AtomicInteger next = new AtomicInteger();
+        final Runnable worker = () -> {
+            for (int i = next.getAndIncrement(); i < files.size() && !Thread.currentThread().isInterrupted(); i = next.getAndIncrement()) {
+                final CompletableFuture<String> detection = results.get(i);
+                if (detection.isDone()) {
+                    // pre-validated, or cancelled because deadline has passed
+                    continue;
+                }
+
+                try {
+                    detection.complete(MimeTypeDetector.detect(files.get(i), contentHash));
+                } catch (Exception e) {
+                    detection.completeExceptionally(e);
+                }
+            }
+        };
+
+        final List<Future<?>> workers = new ArrayList<>();
+        final ExecutorService executor = ValidatorExecutors.getDetectionExecutor();
+        try {
+            for (int i = 0, count = Math.min(Math.max(1, maxConcurrency), undetected); i < count; i++) {
+                workers.add(executor.submit(worker));
+            }
+        } catch (RejectedExecutionException e) {
+            LogUtil.debug(getClassName(), "Detection executor is saturated, detecting in calling thread");
+            worker.run();
+        }
+
+        return new Detections(results, workers);
+    }
+
+    /**
+     * @return detected MIME type, or null when detection failed and the error has been reported
+     */
+    protected String detect(File file, boolean contentHash, String elementName, FormData formData) {
+        try {
+            return MimeTypeDetector.detect(file, contentHash);
+        } catch (IOException e) {
+            LogUtil.error(getClassName(), e, "Element [" + elementName + "] : Error detecting mime type for file [" + file.getName() + "]");
+            formData.addFileError(elementName, "Error validating file " + file.getName());
+            return null;
+        }
+    }
+
+    /**
+     * @return detected MIME type, or null when detection failed or timed out and the error has been reported
+     */
+    protected String awaitDetection(CompletableFuture<String> detection, long deadline, String elementName, File file, FormData formData) {
+        try {
+            return detection.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            LogUtil.warn(getClassName(), "Element [" + elementName + "] : Timeout detecting mime type for file [" + file.getName() + "]");
+            formData.addFileError(elementName, "Timeout validating file " + file.getName());
+        } catch (ExecutionException e) {
+            LogUtil.error(getClassName(), e.getCause(), "Element [" + elementName + "] : Error detecting mime type for file [" + file.getName() + "]");
+            formData.addFileError(elementName, "Error validating file " + file.getName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            formData.addFileError(elementName, "Timeout validating file " + file.getName());
+        }
+        return null;
+    }
+
+    protected boolean isParallel() {
+        return "true".equalsIgnoreCase(getPropertyString("parallel"));
+    }
+
+    protected int getMaxConcurrency() {
+        try {
+            return Integer.parseInt(getPropertyString("maxConcurrency"));
+        } catch (NumberFormatException e) {
+            return 4;
+        }
+    }
+
+    /**
+     * @return overall detection deadline in milliseconds
+     */
+    protected long getTimeout() {
+        try {
+            return Long.parseLong(getPropertyString("timeout"));
+        } catch (NumberFormatException e) {
+            return 30000L;
+        }
+    }
+
+    protected boolean isCacheByContent() {
+        return "content".equalsIgnoreCase(getPropertyString("cacheKey"));
+    }
+
     protected String cleanUpMimeType(String mimeType) {
         return mimeType.replaceAll(";.*", "").trim();
     }
+
+    /**
+     * Pending detections of one validation and the workers running them
+     */
+    protected static class Detections {
+        private final List<CompletableFuture<String>> results;
+        private final List<Future<?>> workers;
+
+        Detections(List<CompletableFuture<String>> results, List<Future<?>> workers) {
+            this.results = results;
+            this.workers = workers;
+        }
+
+        /**
+         * Cancel detections not done yet and interrupt workers still reading files
+         */
+        void cancel() {
+            results.forEach(f -> f.cancel(false));
+            workers.forEach(f -> f.cancel(true));
+        }
+    }
+
+    /**
+     * Immutable snapshot of the validator's properties
+     */
+    protected static class Spec {
+        private final boolean mandatory;
+        private final String errorMessage;
+        private final boolean parallel;
+        private final int maxConcurrency;
+        private final long timeout;
+        private final boolean cacheByContent;
+        private final MimeTypeMatcher matcher;
+
+        Spec(FileTypeValidator validator) {
+            this.mandatory = validator.isMandatory();
+            this.errorMessage = validator.getPropertyString("errorMessage").trim();
+            this.parallel = validator.isParallel();
+            this.maxConcurrency = validator.getMaxConcurrency();
+            this.timeout = validator.getTimeout();
+            this.cacheByContent = validator.isCacheByContent();
+            this.matcher = MimeTypeMatcher.compile(validator.getMimeProperty("includes"), validator.getMimeProperty("excludes"));
+        }
+    }
 }
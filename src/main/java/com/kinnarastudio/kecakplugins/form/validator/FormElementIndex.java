@@ -0,0 +1,75 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.apps.form.model.Element;
+import org.joget.apps.form.model.Form;
+import org.joget.apps.form.model.FormData;
+import org.joget.apps.form.service.FormUtil;
+
+import java.util.*;
+
+/**
+ * ID to element index of a form, built once per root form and {@link FormData} and shared by all validators
+ * of the same submission. Indexes are released together with their form data.
+ */
+public final class FormElementIndex {
+    private final static Map<FormData, Map<Form, FormElementIndex>> indexes = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<String, Element> elements = new HashMap<>();
+
+    private FormElementIndex(Form rootForm, FormData formData) {
+        index(rootForm, formData);
+    }
+
+    /**
+     * Same result as {@link FormUtil#findElement(String, Element, FormData, Boolean)} including sub forms,
+     * without walking the form tree for every lookup
+     *
+     * @param id       element ID
+     * @param rootForm root form
+     * @param formData form data
+     * @return element or null if not found
+     */
+    public static Element findElement(String id, Form rootForm, FormData formData) {
+        if (rootForm == null || formData == null) {
+            return FormUtil.findElement(id, rootForm, formData, true);
+        }
+
+        FormElementIndex index;
+        synchronized (indexes) {
+            index = indexes.computeIfAbsent(formData, k -> new IdentityHashMap<>()).get(rootForm);
+        }
+
+        if (index == null) {
+            // build outside the lock, walking the tree may load sub forms
+            final FormElementIndex built = new FormElementIndex(rootForm, formData);
+            synchronized (indexes) {
+                index = indexes.computeIfAbsent(formData, k -> new IdentityHashMap<>()).putIfAbsent(rootForm, built);
+            }
+            if (index == null) {
+                index = built;
+            }
+        }
+
+        final Element element = index.elements.get(id);
+
+        // element might be added after the index is built
+        return element != null ? element : FormUtil.findElement(id, rootForm, formData, true);
+    }
+
+    /**
+     * Pre-order walk, first element wins just like {@link FormUtil#findElement(String, Element, FormData, Boolean)}
+     */
+    private void index(Element element, FormData formData) {
+        final String id = element.getPropertyString(FormUtil.PROPERTY_ID);
+        if (id != null && !id.isEmpty()) {
+            elements.putIfAbsent(id, element);
+        }
+
+        final Collection<Element> children = element.getChildren(formData);
+        if (children != null) {
+            for (Element child : children) {
+                index(child, formData);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.apps.app.service.AppUtil;
+import org.joget.apps.form.model.FormValidator;
+import org.joget.plugin.base.PluginManager;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Configured validator instances wrapped by other validators, keyed by content digest of their properties.
+ * Only validators of this bundle, which keep no request state, are cached and shared by concurrent requests.
+ * Other plugins may hold request state, a new instance of them is created for every lookup.
+ */
+public final class FormValidators {
+    private final static LruCache<String, FormValidator> validators = new LruCache<>(256, 0);
+
+    /**
+     * Validators of this bundle whose instances are safe to share once configured
+     */
+    private final static Set<Class<?>> SHAREABLE = Set.of(
+            CompositeValidator.class,
+            DateTimeValidator.class,
+            FileTypeValidator.class,
+            MultiFieldValidator.class,
+            NegationValidator.class,
+            OptionsValueValidator.class,
+            ValuesMatcherValidator.class);
+
+    private FormValidators() {
+    }
+
+    /**
+     * @param validator validator element select value, map of className and properties
+     * @return configured validator, or null if plugin is not found
+     */
+    public static FormValidator getValidator(Map<String, Object> validator) {
+        return getValidator(PropertiesKey.digest(validator), validator);
+    }
+
+    /**
+     * @param key       {@link PropertiesKey#digest(Object)} of validator, computed once by compiled specs
+     * @param validator validator element select value, map of className and properties
+     * @return configured validator, shared if it is a validator of this bundle, or null if plugin is not found
+     */
+    public static FormValidator getValidator(String key, Map<String, Object> validator) {
+        final FormValidator cached = validators.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final PluginManager pluginManager = (PluginManager) AppUtil.getApplicationContext().getBean("pluginManager");
+        final FormValidator created = (FormValidator) pluginManager.getPlugin(validator);
+        if (created != null && isShareable(created)) {
+            validators.put(key, created);
+        }
+        return created;
+    }
+
+    /**
+     * @param validator validator
+     * @return true if the instance can be shared by concurrent requests
+     */
+    public static boolean isShareable(FormValidator validator) {
+        return SHAREABLE.contains(validator.getClass());
+    }
+
+    /**
+     * Drop cached validators, called when plugins are reloaded
+     */
+    public static void invalidateAll() {
+        validators.invalidateAll();
+    }
+}
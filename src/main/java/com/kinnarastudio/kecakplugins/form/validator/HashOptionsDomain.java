@@ -0,0 +1,47 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Options domain backed by hash set, for small number of options
+ */
+public class HashOptionsDomain implements OptionsDomain {
+    // rough per entry cost of hash table slot, node and String header
+    private final static int ENTRY_OVERHEAD = 32 + 24 + 16;
+
+    private final Set<String> values;
+
+    private volatile String digest;
+
+    public HashOptionsDomain(Collection<String> values) {
+        this.values = Set.copyOf(values);
+    }
+
+    @Override
+    public boolean contains(String value) {
+        return values.contains(value);
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public long getFootprint() {
+        return values.stream()
+                .mapToLong(s -> ENTRY_OVERHEAD + 2L * s.length())
+                .sum();
+    }
+
+    @Override
+    public String getDigest() {
+        String result = digest;
+        if (result == null) {
+            digest = result = PropertiesKey.digest(new TreeSet<>(values));
+        }
+        return result;
+    }
+}
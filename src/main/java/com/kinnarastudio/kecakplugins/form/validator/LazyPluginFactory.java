@@ -0,0 +1,40 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.ServiceFactory;
+import org.osgi.framework.ServiceRegistration;
+
+import java.util.function.Supplier;
+
+/**
+ * Plugin service created when it is first requested instead of when the bundle starts.
+ * Plugin services are only prototypes, one instance is shared by every requesting bundle.
+ */
+class LazyPluginFactory implements ServiceFactory {
+    private final Supplier<?> supplier;
+
+    private volatile Object service;
+
+    LazyPluginFactory(Supplier<?> supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public Object getService(Bundle bundle, ServiceRegistration registration) {
+        Object result = service;
+        if (result == null) {
+            synchronized (this) {
+                result = service;
+                if (result == null) {
+                    service = result = supplier.get();
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void ungetService(Bundle bundle, ServiceRegistration registration, Object service) {
+        // shared instance is kept until the bundle stops
+    }
+}
@@ -0,0 +1,168 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, thread safe least-recently-used cache with optional time-to-live
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class LruCache<K, V> {
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<K, CacheEntry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxSize   maximum number of entries
+     * @param ttlMillis entry time-to-live in milliseconds, 0 or less to keep entries until evicted
+     */
+    public LruCache(int maxSize, long ttlMillis) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                final boolean evict = size() > LruCache.this.maxSize;
+                if (evict) {
+                    evictions.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * @param key key
+     * @return cached value or null when absent or expired
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            final CacheEntry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+
+            if (entry.isExpired(System.currentTimeMillis())) {
+                entries.remove(key);
+                misses.incrementAndGet();
+                return null;
+            }
+
+            hits.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlMillis);
+    }
+
+    /**
+     * @param key       key
+     * @param value     value
+     * @param ttlMillis time-to-live of this entry, 0 or less to keep it until evicted
+     */
+    public void put(K key, V value, long ttlMillis) {
+        if (value == null) {
+            return;
+        }
+
+        final long expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        synchronized (entries) {
+            entries.put(key, new CacheEntry<>(value, expiresAt));
+        }
+    }
+
+    /**
+     * Get cached value or compute and cache it. The mapping function is called outside the lock,
+     * so concurrent callers may compute the same key more than once
+     *
+     * @param key             key
+     * @param mappingFunction value producer, null result is not cached
+     * @return value
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        return computeIfAbsent(key, mappingFunction, ttlMillis);
+    }
+
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction, long ttlMillis) {
+        final V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final V value = mappingFunction.apply(key);
+        put(key, value, ttlMillis);
+        return value;
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateIf(Predicate<? super K> predicate) {
+        synchronized (entries) {
+            entries.keySet().removeIf(predicate);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "size [" + size() + "/" + maxSize + "] hits [" + hits.get() + "] misses [" + misses.get() + "] evictions [" + evictions.get() + "]";
+    }
+
+    private static class CacheEntry<V> {
+        final V value;
+        final long expiresAt;
+
+        CacheEntry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
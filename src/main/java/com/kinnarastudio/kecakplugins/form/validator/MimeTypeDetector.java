@@ -0,0 +1,246 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.apache.tika.Tika;
+import org.apache.tika.mime.MimeTypes;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Bundle-wide MIME type detector.
+ *
+ * {@link Tika} is thread safe but expensive to build (MIME repository and detector chain),
+ * so a single instance is shared by every {@link FileTypeValidator} and released when the bundle stops.
+ * Detection results are kept in a bounded LRU cache, sized with system properties
+ * <code>kecak.validators.mimeCache.size</code> and <code>kecak.validators.mimeCache.ttl</code> (milliseconds).
+ * Only the first bytes of a file are read for detection. By default as many as Tika's magic patterns may look at
+ * ({@link MimeTypes#getMinLength()}, 64 KiB), since a few formats such as ISO 9660 images have their signature
+ * far from the start. A smaller window, at least 512 bytes, can be set with <code>kecak.validators.mimeDetection.window</code>
+ * to read less, at the cost of missing those signatures.
+ */
+public final class MimeTypeDetector {
+    private static final int CACHE_SIZE = Integer.getInteger("kecak.validators.mimeCache.size", 10000);
+    private static final long CACHE_TTL = Long.getLong("kecak.validators.mimeCache.ttl", 60L * 60L * 1000L);
+
+
+    private static final Object lock = new Object();
+
+    private static final LruCache<Object, String> cache = new LruCache<>(CACHE_SIZE, CACHE_TTL);
+
+    private static volatile Tika tika;
+
+    private MimeTypeDetector() {
+    }
+
+    /**
+     * Detect MIME type of file from its name and magic bytes within the detection window,
+     * the rest of the file is never read
+     *
+     * @param file file to inspect
+     * @return detected MIME type
+     * @throws IOException when file cannot be read
+     */
+    public static String detect(File file) throws IOException {
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            final byte[] prefix = readPrefix(file, getDetectionWindow());
+            ValidatorMetrics.count("FileTypeValidator.detectedFiles", 1);
+            ValidatorMetrics.count("FileTypeValidator.bytesRead", prefix.length);
+
+            final String mimeType = getTika().detect(prefix, file.getName());
+            failed = false;
+            return mimeType;
+        } finally {
+            ValidatorMetrics.timer("FileTypeValidator.tikaDetect", "").record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * @return number of bytes to read for detection
+     */
+    static int getDetectionWindow() {
+        return DetectionWindow.SIZE;
+    }
+
+    /**
+     * @param file   file
+     * @param window maximum number of bytes to read
+     * @return first bytes of the file, shorter than window for small files
+     * @throws IOException when file cannot be read
+     */
+    static byte[] readPrefix(File file, int window) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(window, channel.size()));
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read != -1 && buffer.hasRemaining());
+
+            return buffer.position() == buffer.capacity() ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+
+    /**
+     * Detect MIME type of file, reusing previous result for the same file
+     *
+     * @param file        file to inspect
+     * @param contentHash identify file by SHA-256 of its content instead of path, size and last modified time
+     * @return detected MIME type
+     * @throws IOException when file cannot be read
+     */
+    public static String detect(File file, boolean contentHash) throws IOException {
+        final Object key = contentHash ? new ContentKey(file) : new FileKey(file);
+        final String cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final String mimeType = detect(file);
+        cache.put(key, mimeType);
+        return mimeType;
+    }
+
+    /**
+     * Previous detection result of the same path, size and last modified time, without reading the file.
+     * Not to be used when files are identified by content, a file replaced keeping its size and last modified time has the same key.
+     *
+     * @param file file to inspect
+     * @return detected MIME type or null if file has not been detected yet
+     */
+    public static String getDetected(File file) {
+        return cache.get(new FileKey(file));
+    }
+
+    /**
+     * @return detection result cache
+     */
+    public static LruCache<Object, String> getCache() {
+        return cache;
+    }
+
+    /**
+     * Build the shared detector and run one detection, so the first upload does not pay the loading cost
+     */
+    public static void warmUp() {
+        getTika().detect(new byte[0], "warm-up.txt");
+    }
+
+    /**
+     * Drop the shared detector, called when bundle stops
+     */
+    public static void release() {
+        synchronized (lock) {
+            tika = null;
+        }
+        cache.invalidateAll();
+    }
+
+    static Tika getTika() {
+        Tika result = tika;
+        if (result == null) {
+            synchronized (lock) {
+                result = tika;
+                if (result == null) {
+                    tika = result = createTika();
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Tika createTika() {
+        // Tika looks up its service files through the context class loader, make sure it sees this bundle
+        final Thread currentThread = Thread.currentThread();
+        final ClassLoader contextClassLoader = currentThread.getContextClassLoader();
+        try {
+            currentThread.setContextClassLoader(MimeTypeDetector.class.getClassLoader());
+            return new Tika();
+        } finally {
+            currentThread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    /**
+     * Resolved once, on first detection, so the MIME repository is not loaded before it is needed
+     */
+    private static final class DetectionWindow {
+        private static final int SIZE = Optional.ofNullable(Integer.getInteger("kecak.validators.mimeDetection.window"))
+                .map(window -> Math.max(512, window))
+                .orElseGet(() -> MimeTypes.getDefaultMimeTypes(MimeTypeDetector.class.getClassLoader()).getMinLength());
+    }
+
+    /**
+     * Cheap file identity, path + size + last modified time
+     */
+    private static final class FileKey {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+
+        FileKey(File file) {
+            this.path = file.getAbsolutePath();
+            this.size = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof FileKey)) return false;
+            final FileKey that = (FileKey) o;
+            return size == that.size && lastModified == that.lastModified && path.equals(that.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, size, lastModified);
+        }
+    }
+
+    /**
+     * Content identity, SHA-256 digest of the whole file. Unlike detection, hashing reads the file to its end
+     */
+    private static final class ContentKey {
+        private final String digest;
+
+        ContentKey(File file) throws IOException {
+            try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    messageDigest.update(buffer, 0, read);
+                }
+
+                final StringBuilder sb = new StringBuilder();
+                for (byte b : messageDigest.digest()) {
+                    sb.append(String.format("%02x", b));
+                }
+                this.digest = sb.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof ContentKey && digest.equals(((ContentKey) o).digest));
+        }
+
+        @Override
+        public int hashCode() {
+            return digest.hashCode();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import java.util.*;
+
+/**
+ * Immutable, compiled MIME type include / exclude rule.
+ *
+ * Exact types are looked up by hash, wildcard families such as <code>image/*</code> or
+ * <code>application/vnd.openxmlformats-*</code> are looked up by prefix. Matching is case-insensitive.
+ */
+public final class MimeTypeMatcher {
+    private static final LruCache<List<Collection<String>>, MimeTypeMatcher> cache = new LruCache<>(256, 0);
+
+    private final Family includes;
+    private final Family excludes;
+
+    private MimeTypeMatcher(Collection<String> includes, Collection<String> excludes) {
+        this.includes = new Family(includes);
+        this.excludes = new Family(excludes);
+    }
+
+    /**
+     * Get compiled matcher for includes / excludes configuration
+     *
+     * @param includes accepted MIME types, empty to accept everything
+     * @param excludes rejected MIME types
+     * @return matcher
+     */
+    public static MimeTypeMatcher compile(Collection<String> includes, Collection<String> excludes) {
+        return cache.computeIfAbsent(List.of(includes, excludes), k -> new MimeTypeMatcher(includes, excludes));
+    }
+
+    /**
+     * @param mimeType MIME type without parameter
+     * @return true if MIME type is accepted
+     */
+    public boolean test(String mimeType) {
+        final String normalized = mimeType.trim().toLowerCase(Locale.ROOT);
+        return (includes.isEmpty() || includes.contains(normalized)) && !excludes.contains(normalized);
+    }
+
+    private static final class Family {
+        private final Set<String> exacts = new HashSet<>();
+        private final Set<String> prefixes = new HashSet<>();
+
+        // distinct prefix lengths, so lookup costs one hash probe per length instead of a scan of every prefix
+        private final int[] prefixLengths;
+
+        private boolean matchAll = false;
+
+        Family(Collection<String> mimeTypes) {
+            final SortedSet<Integer> lengths = new TreeSet<>();
+            for (String mimeType : mimeTypes) {
+                final String normalized = mimeType.trim().toLowerCase(Locale.ROOT);
+                if (normalized.equals("*") || normalized.equals("*/*")) {
+                    matchAll = true;
+                } else if (normalized.endsWith("*")) {
+                    final String prefix = normalized.substring(0, normalized.length() - 1);
+                    prefixes.add(prefix);
+                    lengths.add(prefix.length());
+                } else if (!normalized.isEmpty()) {
+                    exacts.add(normalized);
+                }
+            }
+
+            prefixLengths = lengths.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        boolean isEmpty() {
+            return !matchAll && exacts.isEmpty() && prefixes.isEmpty();
+        }
+
+        boolean contains(String mimeType) {
+            if (matchAll || exacts.contains(mimeType)) {
+                return true;
+            }
+
+            for (int length : prefixLengths) {
+                if (length > mimeType.length()) {
+                    break;
+                }
+
+                if (prefixes.contains(mimeType.substring(0, length))) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.joget.commons.util.ResourceBundleUtil;
 import org.joget.plugin.base.PluginManager;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -20,37 +21,68 @@ import java.util.stream.Stream;
  * Validate if current element's value(s) have been assigned to other elements
  *
  */
-public class MultiFieldValidator extends FormValidator {
+public class MultiFieldValidator extends FormValidator implements BatchValidator {
     public final static String LABEL = "Multivalue Multi Field Validator";
 
+    /**
+     * Form-wide occurrence maps, per submission and group of element IDs
+     */
+    private final static Map<FormData, Map<Set<String>, Map<String, List<String>>>> groupOccurrences = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final ValidatorSpecs.Memo<MultiFieldValidator, Spec> spec = new ValidatorSpecs.Memo<>(Spec::new);
+
     @Override
     public boolean validate(Element element, FormData formData, String[] strings) {
+        return ValidatorMetrics.measure(this, element, () -> doValidate(element, formData, strings));
+    }
+
+    protected boolean doValidate(Element element, FormData formData, String[] strings) {
+        return doValidate(element, formData, strings, FormUtil.findRootForm(element), getSpec().elementNames);
+    }
+
+    /**
+     * Root form and configured elements are resolved once for all rows
+     */
+    @Override
+    public RowValidator prepareBatch(Element element) {
+        final Form rootForm = FormUtil.findRootForm(element);
+        final List<String> elementNames = getSpec().elementNames;
+        return (formData, values) -> doValidate(element, formData, values, rootForm, elementNames);
+    }
+
+    protected boolean doValidate(Element element, FormData formData, String[] strings, Form rootForm, List<String> elementNames) {
         String id = FormUtil.getElementParameterName(element);
         String label = element.getPropertyString("label");
 
-        if("true".equalsIgnoreCase(getPropertyString("mandatory"))) {
-            boolean valid = validateMandatory(formData, id, label, strings, getPropertyString("message"));
+        final Spec spec = getSpec();
+        if(spec.mandatory) {
+            boolean valid = validateMandatory(formData, id, label, strings, spec.message);
             if(!valid) {
                 return false;
             }
         }
 
-        Form rootForm = FormUtil.findRootForm(element);
-
+        final boolean debug = spec.debug;
         Set<String> values = Arrays.stream(strings)
                 .map(s -> s.split(";"))
                 .flatMap(Arrays::stream)
                 .filter(s -> !s.isEmpty())
                 .distinct()
-                .peek(s -> LogUtil.info(getClassName(), "values ["+s+"]"))
+                .peek(s -> {
+                    if (debug) {
+                        LogUtil.info(getClassName(), "values [" + s + "]");
+                    }
+                })
                 .collect(Collectors.toSet());
 
         final String elementId = element.getPropertyString("id");
 
-        for(Object o : (Object[])getProperty("elements")) {
-            Map<String, Object> map = (Map<String, Object>) o;
-            String elementName = String.valueOf(map.get("name"));
-            Element checkElement = FormUtil.findElement(elementName, rootForm, formData, true);
+        if (spec.formWide) {
+            return validateFormWide(element, formData, rootForm, values, elementNames);
+        }
+
+        for(String elementName : elementNames) {
+            Element checkElement = findElement(elementName, rootForm, formData);
             String checkValue = FormUtil.getRequestParameter(checkElement, formData);
 
             Set<String> checkedValues = Optional.ofNullable(checkValue)
@@ -69,12 +101,7 @@ public class MultiFieldValidator extends FormValidator {
                         .filter(s -> !s.isEmpty())
                         .orElse(elementName);
 
-                String message = Optional.ofNullable(getPropertyString("message"))
-                        .filter(s -> !s.isEmpty())
-                        .map(s -> AppUtil.processHashVariable(s, null, null, null))
-                        .orElse("Value already assigned to field " + elementLabel);
-
-                formData.addFormError(elementId, message);
+                formData.addFormError(elementId, getAlreadyAssignedMessage(elementLabel));
 
                 return false;
             }
@@ -85,6 +112,138 @@ public class MultiFieldValidator extends FormValidator {
         return true;
     }
 
+    /**
+     * Form-wide mode, values of this element and all configured elements are read once per submission
+     * into a shared value to elements occurrence map. This element is invalid when one of its values
+     * also occurs in another element of the group.
+     */
+    protected boolean validateFormWide(Element element, FormData formData, Form rootForm, Set<String> values, List<String> elementNames) {
+        final String elementId = element.getPropertyString("id");
+
+        final SortedSet<String> group = new TreeSet<>();
+        group.add(elementId);
+        group.addAll(elementNames);
+
+        Map<String, List<String>> shared;
+        synchronized (groupOccurrences) {
+            shared = groupOccurrences.computeIfAbsent(formData, k -> new HashMap<>()).get(group);
+        }
+
+        if (shared == null) {
+            final Map<String, List<String>> built = getOccurrences(group, rootForm, formData);
+            synchronized (groupOccurrences) {
+                shared = groupOccurrences.computeIfAbsent(formData, k -> new HashMap<>()).putIfAbsent(group, built);
+            }
+            if (shared == null) {
+                shared = built;
+            }
+        }
+
+        final Map<String, List<String>> occurrences = shared;
+
+        final Optional<String> assignedTo = values.stream()
+                .map(occurrences::get)
+                .filter(Objects::nonNull)
+                .flatMap(Collection::stream)
+                .filter(Predicate.not(elementId::equals))
+                .findFirst();
+
+        if (assignedTo.isPresent()) {
+            final String elementName = assignedTo.get();
+            final String elementLabel = Optional.ofNullable(findElement(elementName, rootForm, formData))
+                    .map(e -> e.getPropertyString("label"))
+                    .filter(s -> !s.isEmpty())
+                    .orElse(elementName);
+
+            formData.addFormError(elementId, getAlreadyAssignedMessage(elementLabel));
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Single pass over elements of the group
+     *
+     * @return value to IDs of elements containing the value
+     */
+    protected Map<String, List<String>> getOccurrences(Collection<String> group, Form rootForm, FormData formData) {
+        final boolean debug = getSpec().debug;
+        final Map<String, List<String>> occurrences = new HashMap<>();
+        for (String elementName : group) {
+            final Element groupElement = findElement(elementName, rootForm, formData);
+            if (groupElement == null) {
+                continue;
+            }
+
+            Optional.ofNullable(FormUtil.getRequestParameter(groupElement, formData))
+                    .map(s -> s.split(";"))
+                    .map(Arrays::stream)
+                    .orElseGet(Stream::empty)
+                    .filter(s -> !s.isEmpty())
+                    .distinct()
+                    .forEach(s -> {
+                        if (debug) {
+                            LogUtil.info(getClassName(), "element [" + elementName + "] value [" + s + "]");
+                        }
+                        occurrences.computeIfAbsent(s, k -> new ArrayList<>(2)).add(elementName);
+                    });
+        }
+        return occurrences;
+    }
+
+    /**
+     * @return compiled configuration
+     */
+    protected Spec getSpec() {
+        return spec.get(this);
+    }
+
+    @Override
+    public void setProperty(String property, Object value) {
+        super.setProperty(property, value);
+        spec.clear();
+    }
+
+    @Override
+    public void setProperties(Map<String, Object> properties) {
+        super.setProperties(properties);
+        spec.clear();
+    }
+
+    /**
+     * @return names of elements configured in "elements" grid
+     */
+    protected List<String> getElementNames() {
+        return Optional.ofNullable(getProperty("elements"))
+                .filter(o -> o instanceof Object[])
+                .map(o -> (Object[]) o)
+                .stream()
+                .flatMap(Arrays::stream)
+                .map(o -> (Map<String, Object>) o)
+                .map(m -> String.valueOf(m.get("name")))
+                .collect(Collectors.toList());
+    }
+
+    protected Element findElement(String elementName, Form rootForm, FormData formData) {
+        return ValidatorMetrics.time("MultiFieldValidator.elementLookup", elementName, () -> FormElementIndex.findElement(elementName, rootForm, formData));
+    }
+
+    protected String getAlreadyAssignedMessage(String elementLabel) {
+        return Optional.ofNullable(getSpec().message)
+                .filter(s -> !s.isEmpty())
+                .map(s -> AppUtil.processHashVariable(s, null, null, null))
+                .orElse("Value already assigned to field " + elementLabel);
+    }
+
+    protected boolean isFormWide() {
+        return "true".equalsIgnoreCase(getPropertyString("formWide"));
+    }
+
+    protected boolean isDebug() {
+        return "true".equalsIgnoreCase(getPropertyString("debug"));
+    }
+
     protected boolean validateMandatory(FormData data, String id, String label, String[] values, String message) {
         boolean result = true;
         if (message == null || message.isEmpty()) {
@@ -111,10 +270,7 @@ public class MultiFieldValidator extends FormValidator {
     @Override
     public String getElementDecoration() {
         String decoration = "";
-        @SuppressWarnings("unused")
-        String type = (String) getProperty("type");
-        String mandatory = (String) getProperty("mandatory");
-        if ("true".equals(mandatory)) {
+        if (getSpec().mandatory) {
             decoration += " * ";
         }
         if (decoration.trim().length() > 0) {
@@ -123,6 +279,25 @@ public class MultiFieldValidator extends FormValidator {
         return decoration;
     }
 
+    /**
+     * Immutable snapshot of the validator's properties
+     */
+    protected static class Spec {
+        private final boolean mandatory;
+        private final String message;
+        private final List<String> elementNames;
+        private final boolean formWide;
+        private final boolean debug;
+
+        Spec(MultiFieldValidator validator) {
+            this.mandatory = "true".equalsIgnoreCase(validator.getPropertyString("mandatory"));
+            this.message = validator.getPropertyString("message");
+            this.elementNames = List.copyOf(validator.getElementNames());
+            this.formWide = validator.isFormWide();
+            this.debug = validator.isDebug();
+        }
+    }
+
     @Override
     public String getName() {
         return LABEL;
@@ -13,17 +13,44 @@ import java.util.ResourceBundle;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
-public class NegationValidator extends FormValidator {
+public class NegationValidator extends FormValidator implements BatchValidator {
     public final static String LABEL = "Negation Validator";
 
+    private final ValidatorSpecs.Memo<NegationValidator, Spec> spec = new ValidatorSpecs.Memo<>(Spec::new);
+
     @Override
     public boolean validate(Element element, FormData formData, String[] strings) {
+        return ValidatorMetrics.measure(this, element, () -> doValidate(element, formData, strings));
+    }
+
+    protected boolean doValidate(Element element, FormData formData, String[] strings) {
+        final FormValidator validator = getInnerValidator();
+        return doValidate(element, formData, strings, (fd, values) -> validator.validate(element, fd, values));
+    }
+
+    /**
+     * Inner validator is resolved once, and prepared for batch as well when it supports it
+     */
+    @Override
+    public RowValidator prepareBatch(Element element) {
+        final FormValidator validator = getInnerValidator();
+        final RowValidator inner = validator instanceof BatchValidator
+                ? ((BatchValidator) validator).prepareBatch(element)
+                : (fd, values) -> validator.validate(element, fd, values);
+        return (formData, values) -> doValidate(element, formData, values, inner);
+    }
+
+    @Override
+    public boolean isParallelBatch(Element element) {
+        final FormValidator validator = getInnerValidator();
+        return validator instanceof BatchValidator && ((BatchValidator) validator).isParallelBatch(element);
+    }
+
+    protected boolean doValidate(Element element, FormData formData, String[] strings, RowValidator validator) {
         final String elementId = element.getPropertyString("id");
-        final PluginManager pluginManager = (PluginManager) AppUtil.getApplicationContext().getBean("pluginManager");
-        final Map<String, Object> elementValidator = getValidator();
-        final FormValidator validator = pluginManager.getPlugin(elementValidator);
+        final Spec spec = getSpec();
 
-        if(isMandatory()) {
+        if(spec.mandatory) {
             final boolean isSupplied = Arrays.stream(strings)
                     .anyMatch(Predicate.not(String::isEmpty));
 
@@ -32,9 +59,9 @@ public class NegationValidator extends FormValidator {
                 return false;
             }
         }
-        final boolean isValid = validator.validate(element, formData, strings);
+        final boolean isValid = validator.validate(formData, strings);
         if(isValid) {
-            formData.addFormError(elementId, getErrorMessage());
+            formData.addFormError(elementId, spec.errorMessage);
             return false;
         } else {
             formData.getFormErrors().remove(elementId);
@@ -75,6 +102,40 @@ public class NegationValidator extends FormValidator {
         return AppUtil.readPluginResource(getClassName(), "/properties/NegationValidator.json", null, false, "/messages/NegationValidator");
     }
 
+    /**
+     * @return compiled configuration
+     */
+    protected Spec getSpec() {
+        return spec.get(this);
+    }
+
+    @Override
+    public void setProperty(String property, Object value) {
+        super.setProperty(property, value);
+        spec.clear();
+    }
+
+    @Override
+    public void setProperties(Map<String, Object> properties) {
+        super.setProperties(properties);
+        spec.clear();
+    }
+
+    /**
+     * @return validator to negate, cached per validator configuration
+     */
+    protected FormValidator getInnerValidator() {
+        final Spec spec = getSpec();
+        return FormValidators.getValidator(spec.validatorKey, spec.validator);
+    }
+
+    /**
+     * Drop cached inner validators, called when plugins are reloaded
+     */
+    public static void invalidateValidatorCache() {
+        FormValidators.invalidateAll();
+    }
+
     protected Map<String, Object> getValidator() {
         return (Map<String, Object>) getProperty("validator");
     }
@@ -93,6 +154,23 @@ public class NegationValidator extends FormValidator {
 
     @Override
     public String getElementDecoration() {
-        return isMandatory() ? "*" : "";
+        return getSpec().mandatory ? "*" : "";
+    }
+
+    /**
+     * Immutable snapshot of the validator's properties
+     */
+    protected static class Spec {
+        private final Map<String, Object> validator;
+        private final String validatorKey;
+        private final String errorMessage;
+        private final boolean mandatory;
+
+        Spec(NegationValidator negationValidator) {
+            this.validator = negationValidator.getValidator();
+            this.validatorKey = PropertiesKey.digest(validator);
+            this.errorMessage = negationValidator.getErrorMessage();
+            this.mandatory = negationValidator.isMandatory();
+        }
     }
 }
@@ -0,0 +1,42 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import java.util.Collection;
+
+/**
+ * Immutable set of option values
+ */
+public interface OptionsDomain {
+    /**
+     * @param value option value
+     * @return true if value is one of the options
+     */
+    boolean contains(String value);
+
+    /**
+     * @return number of distinct option values
+     */
+    int size();
+
+    /**
+     * @return estimated memory footprint in bytes
+     */
+    long getFootprint();
+
+    /**
+     * @return SHA-256 digest of the values, changes only when the values change
+     */
+    String getDigest();
+
+    /**
+     * Build domain, using a compact packed structure when there are more than <code>compactThreshold</code> values
+     *
+     * @param values           option values
+     * @param compactThreshold minimum size to use packed structure
+     * @return domain
+     */
+    static OptionsDomain of(Collection<String> values, int compactThreshold) {
+        return values.size() > compactThreshold
+                ? new PackedOptionsDomain(values)
+                : new HashOptionsDomain(values);
+    }
+}
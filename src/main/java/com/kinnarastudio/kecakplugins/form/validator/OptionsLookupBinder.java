@@ -0,0 +1,25 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.apps.form.model.Element;
+import org.joget.apps.form.model.FormData;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Optional capability of {@link org.joget.apps.form.model.FormLoadOptionsBinder} to check option membership directly,
+ * for example with <code>WHERE value IN (...)</code>, instead of loading the whole options.
+ * {@link OptionsValueValidator} uses it when the configured options binder implements this interface.
+ */
+public interface OptionsLookupBinder {
+    /**
+     * Find which of the values exist as option
+     *
+     * @param element    element being validated
+     * @param primaryKey primary key of form data
+     * @param formData   form data
+     * @param values     values to look up
+     * @return values that exist as option
+     */
+    Set<String> lookup(Element element, String primaryKey, FormData formData, Collection<String> values);
+}
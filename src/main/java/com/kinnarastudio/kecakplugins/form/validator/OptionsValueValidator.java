@@ -1,27 +1,62 @@
 package com.kinnarastudio.kecakplugins.form.validator;
 
+import org.joget.apps.app.dao.FormDefinitionDao;
+import org.joget.apps.app.model.AppDefinition;
+import org.joget.apps.app.model.FormDefinition;
+import org.joget.apps.app.service.AppService;
 import org.joget.apps.app.service.AppUtil;
 import org.joget.apps.form.model.*;
+import org.joget.apps.form.service.FormService;
 import org.joget.apps.form.service.FormUtil;
 import org.joget.commons.util.LogUtil;
 import org.joget.commons.util.ResourceBundleUtil;
 import org.joget.plugin.base.PluginManager;
+import org.joget.plugin.base.PluginWebSupport;
+import org.joget.workflow.model.service.WorkflowUserManager;
+import org.json.JSONObject;
 
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * Options Value Validator
  */
-public class OptionsValueValidator extends FormValidator {
+public class OptionsValueValidator extends FormValidator implements BatchValidator, PluginWebSupport {
     public final static String LABEL = "Options Value Validator";
 
+    private final static int CACHE_SIZE = Integer.getInteger("kecak.validators.optionsCache.size", 1000);
+
+    /**
+     * Option domains, keyed by binder class name, digest of options configuration, dependency values, app ID and app version
+     */
+    private final static LruCache<List<String>, OptionsDomain> domainCache = new LruCache<>(CACHE_SIZE, 0);
+
+    /**
+     * Elements validated by this validator located for web service, keyed by app ID, app version, form ID and field ID
+     */
+    private final static LruCache<List<String>, Element> webServiceElements = new LruCache<>(CACHE_SIZE, 60L * 1000L);
+
+    /**
+     * Whether binder classes implement {@link OptionsLookupBinder}, known after their first instance,
+     * so cached domains are served without creating the binder
+     */
+    private final static Map<String, Boolean> lookupBinders = new ConcurrentHashMap<>();
+
+    private final ValidatorSpecs.Memo<OptionsValueValidator, Spec> spec = new ValidatorSpecs.Memo<>(Spec::new);
+
     @Override
     public String getElementDecoration() {
         String decoration = "";
-        if (isMandatory()) {
+        if (getSpec().mandatory) {
             decoration += " * ";
         }
         if (decoration.trim().length() > 0) {
@@ -31,9 +66,48 @@ public class OptionsValueValidator extends FormValidator {
     }
     @Override
     public boolean validate(Element element, FormData formData, String[] values) {
-        final boolean isMandatory = isMandatory();
+        return ValidatorMetrics.measure(this, element, () -> doValidate(element, formData, values));
+    }
+
+    protected boolean doValidate(Element element, FormData formData, String[] values) {
+        final Supplier<FormLoadOptionsBinder> optionsBinder = getLazyOptionsBinder();
+        return doValidate(element, formData, values, submittedValues -> getMembership(element, formData, submittedValues, optionsBinder));
+    }
+
+    /**
+     * Options binder plugin is created once for all rows. Unless options depend on each row,
+     * options are loaded once as well and every row is checked against the same snapshot.
+     */
+    @Override
+    public RowValidator prepareBatch(Element element) {
+        final FormLoadOptionsBinder optionsBinder = getOptionsBinder();
+        if (optionsBinder instanceof OptionsLookupBinder || isDependent(element)) {
+            return (formData, values) -> doValidate(element, formData, values, optionsBinder);
+        }
+
+        final OptionsDomain domain = getDomain(element, new FormData(), () -> optionsBinder);
+        return (formData, values) -> doValidate(element, formData, values, submittedValues -> domain::contains);
+    }
+
+    /**
+     * Rows only run in parallel when options are loaded once, per row lookups need the caller's persistence session
+     */
+    @Override
+    public boolean isParallelBatch(Element element) {
+        return getSpec().binderClassName.isEmpty() || !(isDependent(element) || isLookupBinder(this::getOptionsBinder));
+    }
+
+    protected boolean doValidate(Element element, FormData formData, String[] values, FormLoadOptionsBinder optionsBinder) {
+        return doValidate(element, formData, values, submittedValues -> getMembership(element, formData, submittedValues, () -> optionsBinder));
+    }
 
-        if(isMandatory) {
+    /**
+     * @param membership membership test of submitted values
+     */
+    protected boolean doValidate(Element element, FormData formData, String[] values, Function<Set<String>, Predicate<String>> membership) {
+        final Spec spec = getSpec();
+
+        if(spec.mandatory) {
             final boolean isValid = validateMandatory(values);
             if (!isValid) {
                 formData.addFormError(FormUtil.getElementParameterName(element), ResourceBundleUtil.getMessage("form.defaultvalidator.err.missingValue"));
@@ -41,28 +115,26 @@ public class OptionsValueValidator extends FormValidator {
             }
         }
 
-        final Stream<String> valuesStream = Optional.ofNullable(values)
+        final Set<String> submittedValues = Optional.ofNullable(values)
                 .map(Arrays::stream)
                 .orElseGet(Stream::empty)
                 .map(s -> s.split(";"))
                 .flatMap(Arrays::stream)
-                .filter(s -> !s.isEmpty());
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
 
         final Predicate<Predicate<String>> check;
-        if(noneMatch()) {
-            check = valuesStream::noneMatch;
+        if(spec.noneMatch) {
+            check = submittedValues.stream()::noneMatch;
         } else {
-            check = valuesStream::anyMatch;
+            check = submittedValues.stream()::anyMatch;
         }
 
-        final Set<String> domain = getOptions(element, formData).stream()
-                .map(r -> r.getProperty(FormUtil.PROPERTY_VALUE))
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.toSet());
+        final Predicate<String> isOption = membership.apply(submittedValues);
 
-        final boolean isValid = check.test(domain::contains);
+        final boolean isValid = check.test(isOption);
         if(!isValid) {
-            final String message = getErrorMessage();
+            final String message = spec.errorMessage;
             formData.addFormError(FormUtil.getElementParameterName(element), message);
         }
 
@@ -102,24 +174,419 @@ public class OptionsValueValidator extends FormValidator {
         return AppUtil.readPluginResource(getClass().getName(), "/properties/OptionsValueValidator.json", null, false, "/messages/OptionsValueValidator");
     }
 
-    protected FormRowSet getOptions(Element element, FormData formData) {
-        final FormRowSet optionsMap = new FormRowSet();
+    /**
+     * Option membership lookup for the browser, answered from the cached options domain.
+     *
+     * GET <code>/web/json/plugin/com.kinnarastudio.kecakplugins.form.validator.OptionsValueValidator/service</code>
+     * with parameters <code>appId</code>, <code>appVersion</code>, <code>formDefId</code>, <code>fieldId</code>,
+     * <code>value</code> (repeatable, values to check) and the form's other field values for dependent options.
+     * Response is <code>{"valid": true, "size": 10, "values": {"a": true}}</code>. The ETag is the domain digest,
+     * so a browser sending <code>If-None-Match</code> gets <code>304 Not Modified</code> until options change.
+     * Only logged in users authorized to the form are answered.
+     */
+    @Override
+    public void webService(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (!"GET".equalsIgnoreCase(request.getMethod())) {
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
 
-        final Object optionProperty = getProperty(FormUtil.PROPERTY_OPTIONS);
-        if (optionProperty instanceof Collection) {
-            optionsMap.addAll((FormRowSet) optionProperty);
+        final WorkflowUserManager workflowUserManager = (WorkflowUserManager) AppUtil.getApplicationContext().getBean("workflowUserManager");
+        if (workflowUserManager.isCurrentUserAnonymous()) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
         }
 
-        final PluginManager pluginManager = (PluginManager) AppUtil.getApplicationContext().getBean("pluginManager");
-        final FormLoadOptionsBinder optionsBinder = pluginManager.getPlugin((Map<String, Object>) getProperty("optionsBinder"));
+        final String appId = request.getParameter("appId");
+        final String appVersion = request.getParameter("appVersion");
+        final String formDefId = request.getParameter("formDefId");
+        final String fieldId = request.getParameter("fieldId");
+        if (Stream.of(appId, formDefId, fieldId).anyMatch(s -> s == null || s.isEmpty())) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Parameters appId, formDefId and fieldId are required");
+            return;
+        }
+
+        final AppService appService = (AppService) AppUtil.getApplicationContext().getBean("appService");
+        final AppDefinition appDefinition = appService.getAppDefinition(appId, appVersion);
+        if (appDefinition == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Application [" + appId + "] not found");
+            return;
+        }
+
+        // binders and hash variables resolve app scoped data through the current app definition
+        AppUtil.setCurrentAppDefinition(appDefinition);
+        try {
+            webService(request, response, appDefinition, formDefId, fieldId);
+        } finally {
+            AppUtil.resetAppDefinition();
+        }
+    }
+
+    protected void webService(HttpServletRequest request, HttpServletResponse response, AppDefinition appDefinition, String formDefId, String fieldId) throws IOException {
+        final FormData formData = new FormData();
+        request.getParameterMap().forEach((name, values) -> formData.addRequestParameterValues(String.valueOf(name), (String[]) values));
+
+        final Element element = getWebServiceElement(appDefinition, formDefId, fieldId, formData);
+        if (element == null || !(element.getValidator() instanceof OptionsValueValidator)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Field [" + fieldId + "] is not validated by " + LABEL);
+            return;
+        }
+
+        final Form rootForm = FormUtil.findRootForm(element);
+        if (rootForm != null && !rootForm.isAuthorize(formData)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        final OptionsValueValidator validator = (OptionsValueValidator) element.getValidator();
+        final Set<String> values = Optional.ofNullable(request.getParameterValues("value"))
+                .map(Arrays::stream)
+                .orElseGet(Stream::empty)
+                .map(s -> s.split(";"))
+                .flatMap(Arrays::stream)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        final Supplier<FormLoadOptionsBinder> optionsBinder = validator.getLazyOptionsBinder();
+        final Predicate<String> isOption;
+        final JSONObject jsonResponse = new JSONObject();
+        if (validator.isLookupBinder(optionsBinder)) {
+            // no domain to cache, every request is looked up
+            isOption = validator.getMembership(element, formData, values, optionsBinder);
+            response.setHeader("Cache-Control", "no-store");
+        } else {
+            final OptionsDomain domain = validator.getDomain(element, formData, optionsBinder);
+            final String eTag = "\"" + domain.getDigest() + "\"";
+            response.setHeader("ETag", eTag);
+            response.setHeader("Cache-Control", "private, no-cache");
+            if (eTag.equals(request.getHeader("If-None-Match"))) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+
+            isOption = domain::contains;
+            jsonResponse.put("size", domain.size());
+        }
+
+        final JSONObject jsonValues = new JSONObject();
+        for (String value : values) {
+            jsonValues.put(value, isOption.test(value));
+        }
+
+        final Predicate<Predicate<String>> check = validator.getSpec().noneMatch ? values.stream()::noneMatch : values.stream()::anyMatch;
+        jsonResponse.put("valid", values.isEmpty() || check.test(isOption));
+        jsonResponse.put("values", jsonValues);
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(jsonResponse.toString());
+    }
+
+    /**
+     * Locate element in form definition. Elements whose validator configuration is free of hash variables
+     * are the same for every user, they are built from form JSON once and reused for a minute.
+     * Others are resolved for the current user on every call. Current app definition has to be set.
+     *
+     * @return element or null if not found
+     */
+    protected static Element getWebServiceElement(AppDefinition appDefinition, String formDefId, String fieldId, FormData formData) {
+        final Element element = getUnresolvedElement(appDefinition, formDefId, fieldId, formData);
+        if (element == null || !hasHashVariable(element)) {
+            return element;
+        }
+
+        final FormService formService = (FormService) AppUtil.getApplicationContext().getBean("formService");
+        return Optional.ofNullable(getFormJson(appDefinition, formDefId))
+                .map(formService::createElementFromJson)
+                .map(form -> FormUtil.findElement(fieldId, form, formData))
+                .orElse(null);
+    }
+
+    /**
+     * @return element built without resolving hash variables, cached when its validator has none
+     */
+    protected static Element getUnresolvedElement(AppDefinition appDefinition, String formDefId, String fieldId, FormData formData) {
+        final List<String> key = List.of(appDefinition.getAppId(), String.valueOf(appDefinition.getVersion()), formDefId, fieldId);
+        final Element cached = webServiceElements.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final FormService formService = (FormService) AppUtil.getApplicationContext().getBean("formService");
+        final Element element = Optional.ofNullable(getFormJson(appDefinition, formDefId))
+                .map(json -> formService.createElementFromJson(json, false))
+                .map(form -> FormUtil.findElement(fieldId, form, formData))
+                .orElse(null);
+
+        if (element != null && !hasHashVariable(element)) {
+            webServiceElements.put(key, element);
+        }
+        return element;
+    }
+
+    protected static String getFormJson(AppDefinition appDefinition, String formDefId) {
+        final FormDefinitionDao formDefinitionDao = (FormDefinitionDao) AppUtil.getApplicationContext().getBean("formDefinitionDao");
+        return Optional.ofNullable(formDefinitionDao.loadById(formDefId, appDefinition))
+                .map(FormDefinition::getJson)
+                .orElse(null);
+    }
+
+    /**
+     * @param element element built without resolving hash variables
+     * @return true if element's validator configuration, options and binder included, contains hash variables
+     */
+    protected static boolean hasHashVariable(Element element) {
+        return Optional.ofNullable(element.getValidator())
+                .map(FormValidator::getProperties)
+                .map(PropertiesKey::canonical)
+                .map(AppUtil::containsHashVariable)
+                .orElse(false);
+    }
+
+    /**
+     * Load options domain of a form field into the cache, used by bundle warm-up.
+     * Dependent options are loaded for an empty control field value. Fields whose options or binder
+     * configuration contain hash variables depend on the current user and are not preloaded.
+     *
+     * @param appId      application ID
+     * @param appVersion application version, null for published version
+     * @param formDefId  form ID
+     * @param fieldId    field ID
+     * @return true if domain is loaded, false if field is not validated by this validator with options caching enabled and without hash variables
+     */
+    public static boolean preloadDomain(String appId, String appVersion, String formDefId, String fieldId) {
+        final AppService appService = (AppService) AppUtil.getApplicationContext().getBean("appService");
+        final AppDefinition appDefinition = appService.getAppDefinition(appId, appVersion);
+        if (appDefinition == null) {
+            return false;
+        }
+
+        AppUtil.setCurrentAppDefinition(appDefinition);
+        try {
+            final FormData formData = new FormData();
+            final Element element = getUnresolvedElement(appDefinition, formDefId, fieldId, formData);
+            if (element == null || !(element.getValidator() instanceof OptionsValueValidator) || hasHashVariable(element)) {
+                // user specific options are never shared
+                return false;
+            }
+
+            final OptionsValueValidator validator = (OptionsValueValidator) element.getValidator();
+            final Supplier<FormLoadOptionsBinder> optionsBinder = validator.getLazyOptionsBinder();
+            if (!validator.getSpec().cacheOptions || validator.isLookupBinder(optionsBinder)) {
+                return false;
+            }
+
+            validator.getDomain(element, formData, optionsBinder);
+            return true;
+        } finally {
+            AppUtil.resetAppDefinition();
+        }
+    }
+
+    /**
+     * Membership test for submitted values. When options binder implements {@link OptionsLookupBinder}
+     * only the submitted values are looked up, otherwise all options are loaded
+     *
+     * @param element         element
+     * @param formData        form data
+     * @param submittedValues submitted values
+     * @param optionsBinder   options binder, created only when options are looked up or loaded; may supply null
+     * @return predicate testing whether value is an option
+     */
+    protected Predicate<String> getMembership(Element element, FormData formData, Set<String> submittedValues, Supplier<FormLoadOptionsBinder> optionsBinder) {
+        if (isLookupBinder(optionsBinder)) {
+            final Set<String> staticValues = getSpec().staticValues;
+            final Set<String> existing = submittedValues.stream()
+                    .filter(staticValues::contains)
+                    .collect(Collectors.toSet());
+
+            if (!submittedValues.isEmpty() && existing.size() < submittedValues.size()) {
+                Optional.ofNullable(ValidatorMetrics.time("OptionsValueValidator.binderLookup", element.getPropertyString("id"),
+                                () -> ((OptionsLookupBinder) optionsBinder.get()).lookup(element, formData.getPrimaryKeyValue(), formData, submittedValues)))
+                        .ifPresent(existing::addAll);
+            }
+            return existing::contains;
+        }
+
+        return getDomain(element, formData, optionsBinder)::contains;
+    }
+
+    /**
+     * @param optionsBinder options binder, created only when its class is not known yet
+     * @return true if options binder implements {@link OptionsLookupBinder}
+     */
+    protected boolean isLookupBinder(Supplier<FormLoadOptionsBinder> optionsBinder) {
+        final String binderClassName = getSpec().binderClassName;
+        if (binderClassName.isEmpty()) {
+            return false;
+        }
+
+        return lookupBinders.computeIfAbsent(binderClassName, k -> optionsBinder.get() instanceof OptionsLookupBinder);
+    }
+
+    /**
+     * Get values of all options, from cache when caching is enabled
+     *
+     * @param element       element
+     * @param formData      form data
+     * @param optionsBinder options binder, created only when options are loaded
+     * @return option values
+     */
+    protected OptionsDomain getDomain(Element element, FormData formData, Supplier<FormLoadOptionsBinder> optionsBinder) {
+        final Spec spec = getSpec();
+        if (!spec.cacheOptions) {
+            // thrown away after this request, not worth packing
+            return loadDomain(element, formData, optionsBinder.get(), false);
+        }
+
+        // binders read app scoped tables and environment variables, equal configurations of different apps differ
+        final AppDefinition appDefinition = AppUtil.getCurrentAppDefinition();
+        final List<String> key = List.of(spec.binderClassName, spec.configurationDigest, getDependencyValue(element, formData),
+                appDefinition == null ? "" : appDefinition.getAppId(),
+                appDefinition == null ? "" : String.valueOf(appDefinition.getVersion()));
+        return domainCache.computeIfAbsent(key, k -> loadDomain(element, formData, optionsBinder.get()), spec.cacheTtl * 1000L);
+    }
+
+    protected OptionsDomain loadDomain(Element element, FormData formData, FormLoadOptionsBinder optionsBinder) {
+        return loadDomain(element, formData, optionsBinder, true);
+    }
+
+    /**
+     * @param compact use packed structure for large domains, worth its build cost only for cached domains
+     */
+    protected OptionsDomain loadDomain(Element element, FormData formData, FormLoadOptionsBinder optionsBinder, boolean compact) {
+        final List<String> values = getOptions(element, formData, optionsBinder).stream()
+                .map(r -> r.getProperty(FormUtil.PROPERTY_VALUE))
+                .filter(Objects::nonNull)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+
+        final OptionsDomain domain = compact
+                ? OptionsDomain.of(values, getSpec().compactThreshold)
+                : new HashOptionsDomain(values);
+        if (domain instanceof PackedOptionsDomain) {
+            LogUtil.info(getClassName(), "Element [" + FormUtil.getElementParameterName(element) + "] : packed [" + domain.size() + "] options into [" + domain.getFootprint() + "] bytes");
+        }
+        return domain;
+    }
+
+    /**
+     * @param element element
+     * @return true if options of element depend on a control field
+     */
+    protected boolean isDependent(Element element) {
+        return !Optional.ofNullable(element.getPropertyString("controlField")).orElse("").isEmpty();
+    }
+
+    /**
+     * Value of the field controlling the options of this element (see element's "controlField" property),
+     * options of dependent fields differ for each control value
+     *
+     * @param element  element
+     * @param formData form data
+     * @return control field value or empty string
+     */
+    protected String getDependencyValue(Element element, FormData formData) {
+        return Optional.ofNullable(element.getPropertyString("controlField"))
+                .filter(Predicate.not(String::isEmpty))
+                .map(controlField -> FormUtil.findElement(controlField, FormUtil.findRootForm(element), formData))
+                .map(controlElement -> FormUtil.getRequestParameter(controlElement, formData))
+                .orElse("");
+    }
+
+    /**
+     * Invalidate all cached option domains
+     */
+    public static void invalidateOptionsCache() {
+        domainCache.invalidateAll();
+        lookupBinders.clear();
+        webServiceElements.invalidateAll();
+    }
+
+    /**
+     * Invalidate cached option domains loaded by matching binders, e.g. binders of a reloaded plugin bundle
+     *
+     * @param binderClassName matches options binder class name
+     */
+    public static void invalidateOptionsCache(Predicate<String> binderClassName) {
+        domainCache.invalidateIf(key -> binderClassName.test(key.get(0)));
+        lookupBinders.keySet().removeIf(binderClassName);
+    }
+
+    protected FormRowSet getOptions(Element element, FormData formData) {
+        return getOptions(element, formData, getOptionsBinder());
+    }
+
+    protected FormRowSet getOptions(Element element, FormData formData, FormLoadOptionsBinder optionsBinder) {
+        final FormRowSet optionsMap = getStaticOptions();
 
         Optional.ofNullable(optionsBinder)
-                .map(b -> b.load(element, formData.getPrimaryKeyValue(), formData))
+                .map(b -> ValidatorMetrics.time("OptionsValueValidator.binderLoad", element.getPropertyString("id"),
+                        () -> b.load(element, formData.getPrimaryKeyValue(), formData)))
                 .ifPresent(optionsMap::addAll);
 
         return optionsMap;
     }
 
+    /**
+     * @return options configured in validator's options grid
+     */
+    protected FormRowSet getStaticOptions() {
+        final FormRowSet optionsMap = new FormRowSet();
+        getSpec().staticOptions.stream().map(Spec::copyOf).forEach(optionsMap::add);
+        return optionsMap;
+    }
+
+    /**
+     * @return compiled configuration
+     */
+    protected Spec getSpec() {
+        return spec.get(this);
+    }
+
+    @Override
+    public void setProperty(String property, Object value) {
+        super.setProperty(property, value);
+        spec.clear();
+    }
+
+    @Override
+    public void setProperties(Map<String, Object> properties) {
+        super.setProperties(properties);
+        spec.clear();
+    }
+
+    protected FormLoadOptionsBinder getOptionsBinder() {
+        final Spec spec = getSpec();
+        if (spec.binderProperties.isEmpty()) {
+            return null;
+        }
+
+        final PluginManager pluginManager = (PluginManager) AppUtil.getApplicationContext().getBean("pluginManager");
+
+        // binder keeps and may modify its properties, give each binder its own copy
+        return pluginManager.getPlugin((Map<String, Object>) Spec.copyOf(spec.binderProperties, false));
+    }
+
+    /**
+     * @return supplier creating options binder on first use, for use by a single thread
+     */
+    protected Supplier<FormLoadOptionsBinder> getLazyOptionsBinder() {
+        return new Supplier<>() {
+            private FormLoadOptionsBinder optionsBinder;
+            private boolean created;
+
+            @Override
+            public FormLoadOptionsBinder get() {
+                if (!created) {
+                    optionsBinder = getOptionsBinder();
+                    created = true;
+                }
+                return optionsBinder;
+            }
+        };
+    }
+
     protected boolean anyMatch() {
         return "anyMatch".equalsIgnoreCase(getPropertyString("matchingType"));
     }
@@ -128,6 +595,32 @@ public class OptionsValueValidator extends FormValidator {
         return "noneMatch".equalsIgnoreCase(getPropertyString("matchingType"));
     }
 
+    protected boolean isCacheOptions() {
+        return "true".equalsIgnoreCase(getPropertyString("cacheOptions"));
+    }
+
+    /**
+     * @return cache time-to-live in seconds, 0 or less to not cache
+     */
+    protected long getCacheTtl() {
+        try {
+            return Long.parseLong(getPropertyString("cacheTtl"));
+        } catch (NumberFormatException e) {
+            return 60L;
+        }
+    }
+
+    /**
+     * @return minimum number of options to use compact domain structure
+     */
+    protected int getCompactThreshold() {
+        try {
+            return Integer.parseInt(getPropertyString("compactThreshold"));
+        } catch (NumberFormatException e) {
+            return 10000;
+        }
+    }
+
     protected boolean isMandatory() {
         return "true".equalsIgnoreCase(getPropertyString("mandatory"));
     }
@@ -150,4 +643,76 @@ public class OptionsValueValidator extends FormValidator {
         }
         return result;
     }
+
+    /**
+     * Immutable snapshot of the validator's properties, copied so concurrent requests sharing it
+     * cannot modify it. Options binder plugin is not part of it, binders may keep state and are created for every use.
+     */
+    protected static class Spec {
+        private final boolean mandatory;
+        private final String errorMessage;
+        private final boolean noneMatch;
+        private final boolean cacheOptions;
+        private final long cacheTtl;
+        private final int compactThreshold;
+        private final List<FormRow> staticOptions;
+        private final Set<String> staticValues;
+        private final Map<String, Object> binderProperties;
+        private final String binderClassName;
+        private final String configurationDigest;
+
+        Spec(OptionsValueValidator validator) {
+            this.mandatory = validator.isMandatory();
+            this.errorMessage = validator.getErrorMessage();
+            this.noneMatch = validator.noneMatch();
+            // a time-to-live of 0 or less turns caching off
+            this.cacheOptions = validator.isCacheOptions() && validator.getCacheTtl() > 0;
+            this.cacheTtl = validator.getCacheTtl();
+            this.compactThreshold = validator.getCompactThreshold();
+
+            final Object optionProperty = validator.getProperty(FormUtil.PROPERTY_OPTIONS);
+            this.staticOptions = optionProperty instanceof Collection
+                    ? ((Collection<?>) optionProperty).stream()
+                            .filter(FormRow.class::isInstance)
+                            .map(r -> copyOf((FormRow) r))
+                            .collect(Collectors.toUnmodifiableList())
+                    : Collections.emptyList();
+            this.staticValues = staticOptions.stream()
+                    .map(r -> r.getProperty(FormUtil.PROPERTY_VALUE))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toUnmodifiableSet());
+
+            final Object binderProperty = validator.getProperty("optionsBinder");
+            this.binderProperties = binderProperty instanceof Map
+                    ? (Map<String, Object>) copyOf(binderProperty, true)
+                    : Collections.emptyMap();
+            this.binderClassName = String.valueOf(binderProperties.getOrDefault("className", ""));
+            this.configurationDigest = PropertiesKey.digest(Arrays.asList(optionProperty, binderProperties));
+        }
+
+        static FormRow copyOf(FormRow row) {
+            final FormRow copy = new FormRow();
+            copy.putAll(row);
+            return copy;
+        }
+
+        /**
+         * @param value        property value, nested maps and arrays are copied
+         * @param unmodifiable true to wrap copied maps as unmodifiable
+         * @return copy of the value
+         */
+        static Object copyOf(Object value, boolean unmodifiable) {
+            if (value instanceof Map) {
+                final Map<String, Object> copy = new HashMap<>();
+                ((Map<?, ?>) value).forEach((k, v) -> copy.put(String.valueOf(k), copyOf(v, unmodifiable)));
+                return unmodifiable ? Collections.unmodifiableMap(copy) : copy;
+            } else if (value instanceof Object[]) {
+                final Object[] copy = ((Object[]) value).clone();
+                Arrays.setAll(copy, i -> copyOf(copy[i], unmodifiable));
+                return copy;
+            } else {
+                return value;
+            }
+        }
+    }
 }
@@ -0,0 +1,145 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Memory compact options domain for large number of options.
+ *
+ * Values are sorted and packed as UTF-8 into a single byte array addressed by an offset array, membership is a binary search.
+ * A Bloom filter in front answers most negative lookups without searching.
+ */
+public class PackedOptionsDomain implements OptionsDomain {
+    private final static int BITS_PER_VALUE = 10;
+    private final static int HASH_FUNCTIONS = 7;
+
+    private final byte[] data;
+    private final int[] offsets;
+    private final long[] bloom;
+    private final int bloomBits;
+
+    private volatile String digest;
+
+    public PackedOptionsDomain(Collection<String> values) {
+        final byte[][] encoded = values.stream()
+                .map(s -> s.getBytes(StandardCharsets.UTF_8))
+                .sorted(Arrays::compareUnsigned)
+                .toArray(byte[][]::new);
+
+        int distinct = 0;
+        int dataLength = 0;
+        for (int i = 0; i < encoded.length; i++) {
+            if (i == 0 || !Arrays.equals(encoded[i], encoded[i - 1])) {
+                encoded[distinct++] = encoded[i];
+                dataLength += encoded[i].length;
+            }
+        }
+
+        data = new byte[dataLength];
+        offsets = new int[distinct + 1];
+        bloomBits = Math.max(64, distinct * BITS_PER_VALUE);
+        bloom = new long[(bloomBits + 63) / 64];
+        for (int i = 0, offset = 0; i < distinct; i++) {
+            System.arraycopy(encoded[i], 0, data, offset, encoded[i].length);
+            offsets[i] = offset;
+            offset += encoded[i].length;
+            offsets[i + 1] = offset;
+            addToBloom(encoded[i]);
+        }
+    }
+
+    @Override
+    public boolean contains(String value) {
+        if (value == null) {
+            return false;
+        }
+
+        final byte[] key = value.getBytes(StandardCharsets.UTF_8);
+        if (!mightContain(key)) {
+            return false;
+        }
+
+        int low = 0;
+        int high = offsets.length - 2;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int compare = Arrays.compareUnsigned(data, offsets[mid], offsets[mid + 1], key, 0, key.length);
+            if (compare < 0) {
+                low = mid + 1;
+            } else if (compare > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public long getFootprint() {
+        return data.length + 4L * offsets.length + 8L * bloom.length;
+    }
+
+    @Override
+    public String getDigest() {
+        String result = digest;
+        if (result == null) {
+            final List<String> values = IntStream.range(0, size())
+                    .mapToObj(i -> new String(data, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8))
+                    .collect(Collectors.toList());
+            digest = result = PropertiesKey.digest(values);
+        }
+        return result;
+    }
+
+    private void addToBloom(byte[] key) {
+        final long hash = hash(key);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            final int bit = bloomIndex(hash, i);
+            bloom[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private boolean mightContain(byte[] key) {
+        final long hash = hash(key);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            final int bit = bloomIndex(hash, i);
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Double hashing, i-th bit index derived from two 32 bit halves of one 64 bit hash
+     */
+    private int bloomIndex(long hash, int i) {
+        final int combined = (int) hash + i * (int) (hash >>> 32);
+        return (combined & Integer.MAX_VALUE) % bloomBits;
+    }
+
+    /**
+     * 64 bit FNV-1a with final mix
+     */
+    private static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
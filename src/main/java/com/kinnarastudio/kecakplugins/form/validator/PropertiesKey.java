@@ -0,0 +1,78 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Content based key of plugin properties. Maps are serialized with sorted keys,
+ * arrays and collections in order, so equal configurations produce equal keys regardless of instance.
+ */
+public final class PropertiesKey {
+    private PropertiesKey() {
+    }
+
+    /**
+     * @param properties properties, usually a map of plugin properties
+     * @return canonical string representation
+     */
+    public static String canonical(Object properties) {
+        final StringBuilder sb = new StringBuilder();
+        append(sb, properties);
+        return sb.toString();
+    }
+
+    /**
+     * @param properties properties, usually a map of plugin properties
+     * @return SHA-256 hex digest of canonical representation
+     */
+    public static String digest(Object properties) {
+        try {
+            final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            final byte[] hash = messageDigest.digest(canonical(properties).getBytes(StandardCharsets.UTF_8));
+            final StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is always available
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void append(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) value;
+            final SortedMap<String, Object> sorted = new TreeMap<>();
+            map.forEach((k, v) -> sorted.put(String.valueOf(k), v));
+
+            sb.append('{');
+            sorted.forEach((k, v) -> {
+                appendString(sb, k);
+                sb.append(':');
+                append(sb, v);
+                sb.append(',');
+            });
+            sb.append('}');
+        } else if (value instanceof Object[]) {
+            append(sb, Arrays.asList((Object[]) value));
+        } else if (value instanceof Collection) {
+            sb.append('[');
+            for (Object item : (Collection<?>) value) {
+                append(sb, item);
+                sb.append(',');
+            }
+            sb.append(']');
+        } else {
+            appendString(sb, String.valueOf(value));
+        }
+    }
+
+    private static void appendString(StringBuilder sb, String value) {
+        sb.append('"').append(value.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+    }
+}
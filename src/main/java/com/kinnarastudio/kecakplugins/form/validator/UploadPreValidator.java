@@ -0,0 +1,203 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.commons.util.FileManager;
+import org.joget.commons.util.LogUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Detect MIME type of uploaded files as soon as they land in {@link FileManager}'s temporary directory.
+ *
+ * The temporary directory is watched in a background thread, a file is detected once it has not been modified for
+ * <code>kecak.validators.preValidation.quietPeriod</code> milliseconds (default 200). The verdict is recorded in
+ * {@link MimeTypeDetector}'s cache against path, size and last modified time, so {@link FileTypeValidator} only looks it up
+ * on submit and falls back to inline detection when the file is unknown or has changed. Validators identifying files
+ * by content do not use these verdicts.
+ * Every uploaded file is read, including files of forms without {@link FileTypeValidator}, so pre-validation is only
+ * enabled with system property <code>kecak.validators.preValidation=true</code>.
+ */
+public final class UploadPreValidator {
+    private static final long QUIET_PERIOD = Long.getLong("kecak.validators.preValidation.quietPeriod", 200L);
+
+    private static final Object lock = new Object();
+
+    private static WatchService watchService;
+    private static Thread watcher;
+
+    private UploadPreValidator() {
+    }
+
+    public static boolean isEnabled() {
+        return "true".equalsIgnoreCase(System.getProperty("kecak.validators.preValidation"));
+    }
+
+    /**
+     * Start watching the temporary upload directory, called when bundle starts
+     */
+    public static void start() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        synchronized (lock) {
+            if (watcher != null) {
+                return;
+            }
+
+            try {
+                final Path baseDirectory = Paths.get(FileManager.getBaseDirectory());
+                Files.createDirectories(baseDirectory);
+
+                watchService = baseDirectory.getFileSystem().newWatchService();
+                watcher = new Thread(new Watcher(watchService, baseDirectory), "kecak-validators-upload-watcher");
+                watcher.setDaemon(true);
+                watcher.setContextClassLoader(UploadPreValidator.class.getClassLoader());
+                watcher.start();
+            } catch (IOException | RuntimeException e) {
+                LogUtil.error(UploadPreValidator.class.getName(), e, "Upload pre-validation is disabled");
+                stop();
+            }
+        }
+    }
+
+    /**
+     * Stop watching, called when bundle stops
+     */
+    public static void stop() {
+        synchronized (lock) {
+            if (watcher != null) {
+                watcher.interrupt();
+                watcher = null;
+            }
+
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    LogUtil.error(UploadPreValidator.class.getName(), e, e.getMessage());
+                }
+                watchService = null;
+            }
+        }
+    }
+
+    private static final class Watcher implements Runnable {
+        private final WatchService watchService;
+        private final Path baseDirectory;
+
+        // file to time of its last event, waiting for the quiet period to pass
+        private final Map<Path, Long> pending = new HashMap<>();
+
+        // limit concurrent detections, uploads come in bursts
+        private final Semaphore permits = new Semaphore(Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+        Watcher(WatchService watchService, Path baseDirectory) {
+            this.watchService = watchService;
+            this.baseDirectory = baseDirectory;
+        }
+
+        @Override
+        public void run() {
+            try {
+                register(baseDirectory);
+
+                // uploads are stored one directory below the base directory
+                try (Stream<Path> directories = Files.list(baseDirectory)) {
+                    directories.filter(Files::isDirectory).forEach(this::register);
+                }
+
+                while (!Thread.currentThread().isInterrupted()) {
+                    final WatchKey key = watchService.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS);
+                    if (key != null) {
+                        handle(key);
+                    }
+                    flush();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // stopped
+            } catch (IOException e) {
+                LogUtil.error(getClass().getName(), e, "Error watching [" + baseDirectory + "]");
+            }
+        }
+
+        private void handle(WatchKey key) {
+            final Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    continue;
+                }
+
+                final Path path = directory.resolve((Path) event.context());
+                if (Files.isDirectory(path)) {
+                    if (directory.equals(baseDirectory)) {
+                        register(path);
+
+                        // files written before the directory was registered
+                        try (Stream<Path> files = Files.list(path)) {
+                            files.filter(Files::isRegularFile).forEach(this::touch);
+                        } catch (IOException e) {
+                            LogUtil.debug(getClass().getName(), "Error listing [" + path + "] : " + e.getMessage());
+                        }
+                    }
+                } else {
+                    touch(path);
+                }
+            }
+            key.reset();
+        }
+
+        private void register(Path directory) {
+            try {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException e) {
+                LogUtil.debug(getClass().getName(), "Error watching [" + directory + "] : " + e.getMessage());
+            }
+        }
+
+        private void touch(Path path) {
+            pending.put(path, System.nanoTime());
+        }
+
+        private void flush() {
+            final long quietSince = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(QUIET_PERIOD);
+            final Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Path, Long> entry = iterator.next();
+                if (entry.getValue() - quietSince > 0 || !permits.tryAcquire()) {
+                    // still being written, or too many detections in flight; try again on next round
+                    continue;
+                }
+                iterator.remove();
+
+                final File file = entry.getKey().toFile();
+                try {
+                    ValidatorExecutors.getDetectionExecutor().execute(() -> {
+                        try {
+                            if (file.isFile()) {
+                                MimeTypeDetector.detect(file, false);
+                                ValidatorMetrics.count("preValidation.detected", 1);
+                            }
+                        } catch (IOException e) {
+                            // deleted or moved before detection, validated inline on submit
+                            LogUtil.debug(UploadPreValidator.class.getName(), "Error detecting [" + file + "] : " + e.getMessage());
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    // e.g. executor rejecting while bundle stops, the file is validated inline on submit
+                    permits.release();
+                    LogUtil.warn(UploadPreValidator.class.getName(), "Error scheduling detection of [" + file + "] : " + e.getMessage());
+                }
+            }
+        }
+    }
+}
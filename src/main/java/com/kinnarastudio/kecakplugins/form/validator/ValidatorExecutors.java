@@ -0,0 +1,118 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.commons.util.LogUtil;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background executors owned by the bundle, shut down when bundle stops.
+ * Detection runs at most <code>kecak.validators.detection.threads</code> tasks at a time for the whole server
+ * (default twice the number of processors, at least 4), with up to <code>kecak.validators.detection.queueSize</code>
+ * (default 1000) tasks waiting.
+ */
+public final class ValidatorExecutors {
+    private static final int DETECTION_THREADS = Math.max(1, Integer.getInteger("kecak.validators.detection.threads",
+            Math.max(4, 2 * Runtime.getRuntime().availableProcessors())));
+
+    private static final int DETECTION_QUEUE_SIZE = Math.max(1, Integer.getInteger("kecak.validators.detection.queueSize", 1000));
+
+    private static final Object lock = new Object();
+
+    private static ExecutorService detectionExecutor;
+
+    private static ForkJoinPool batchPool;
+
+    private ValidatorExecutors() {
+    }
+
+    /**
+     * Bounded executor for blocking I/O work such as file type detection, shared by every request.
+     * Threads are virtual when the runtime supports them, otherwise daemon platform threads, and are released when idle.
+     *
+     * @return executor, throwing {@link java.util.concurrent.RejectedExecutionException} when its queue is full
+     */
+    public static ExecutorService getDetectionExecutor() {
+        synchronized (lock) {
+            if (detectionExecutor == null || detectionExecutor.isShutdown()) {
+                final ThreadPoolExecutor executor = new ThreadPoolExecutor(DETECTION_THREADS, DETECTION_THREADS, 60L, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(DETECTION_QUEUE_SIZE), detectionThreadFactory("kecak-validators-detection"));
+                executor.allowCoreThreadTimeOut(true);
+                detectionExecutor = executor;
+            }
+            return detectionExecutor;
+        }
+    }
+
+    /**
+     * Fork-join pool for CPU bound batch validation, one worker per available processor
+     *
+     * @return pool
+     */
+    public static ForkJoinPool getBatchPool() {
+        synchronized (lock) {
+            if (batchPool == null || batchPool.isShutdown()) {
+                final AtomicInteger counter = new AtomicInteger();
+                batchPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+                    final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("kecak-validators-batch-" + counter.incrementAndGet());
+                    thread.setContextClassLoader(ValidatorExecutors.class.getClassLoader());
+                    return thread;
+                }, null, false);
+            }
+            return batchPool;
+        }
+    }
+
+    public static void shutdown() {
+        synchronized (lock) {
+            if (detectionExecutor != null) {
+                detectionExecutor.shutdownNow();
+                detectionExecutor = null;
+            }
+
+            if (batchPool != null) {
+                batchPool.shutdownNow();
+                batchPool = null;
+            }
+        }
+    }
+
+    static ThreadFactory daemonThreadFactory(String prefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(ValidatorExecutors.class.getClassLoader());
+            return thread;
+        };
+    }
+
+    /**
+     * Thread.ofVirtual() is only available on Java 21 onward
+     *
+     * @return virtual thread factory, or daemon thread factory if virtual threads are not supported
+     */
+    private static ThreadFactory detectionThreadFactory(String prefix) {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix + "-", 1L);
+            final ThreadFactory virtualThreadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return runnable -> {
+                final Thread thread = virtualThreadFactory.newThread(runnable);
+                thread.setContextClassLoader(ValidatorExecutors.class.getClassLoader());
+                return thread;
+            };
+        } catch (ReflectiveOperationException e) {
+            LogUtil.debug(ValidatorExecutors.class.getName(), "Virtual threads are not supported, using platform threads");
+            return daemonThreadFactory(prefix);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.apps.form.model.Element;
+import org.joget.apps.form.model.FormValidator;
+import org.joget.commons.util.LogUtil;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Invocation count, failure count and latency histogram per validator and element,
+ * plus timers of expensive inner steps and plain counters. Exposed through JMX.
+ *
+ * Recording is lock free: a map lookup and a few atomic increments.
+ */
+public final class ValidatorMetrics implements ValidatorMetricsMXBean {
+    public final static String OBJECT_NAME = "com.kinnarastudio.kecakplugins.form.validator:type=ValidatorMetrics";
+
+    private final static ValidatorMetrics instance = new ValidatorMetrics();
+
+    private final Map<String, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    private ValidatorMetrics() {
+    }
+
+    /**
+     * Run and measure validation
+     *
+     * @param validator  validator
+     * @param element    element being validated
+     * @param validation validation, returns true if valid
+     * @return validation result
+     */
+    public static boolean measure(FormValidator validator, Element element, BooleanSupplier validation) {
+        final long start = System.nanoTime();
+        boolean valid = false;
+        try {
+            valid = validation.getAsBoolean();
+            return valid;
+        } finally {
+            timer(validator.getClass().getSimpleName(), element.getPropertyString("id")).record(System.nanoTime() - start, !valid);
+        }
+    }
+
+    /**
+     * Run and measure an inner step
+     *
+     * @param name      step name
+     * @param elementId element ID, empty for steps not bound to an element
+     * @param step      step
+     * @param <T>       result type
+     * @return step result
+     */
+    public static <T> T time(String name, String elementId, Supplier<T> step) {
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            final T result = step.get();
+            failed = false;
+            return result;
+        } finally {
+            timer(name, elementId).record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * @param name      validator or step name
+     * @param elementId element ID, empty for steps not bound to an element
+     * @return timer
+     */
+    public static Timer timer(String name, String elementId) {
+        return instance.timers.computeIfAbsent(name, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(elementId == null ? "" : elementId, k -> new Timer());
+    }
+
+    /**
+     * @param name  counter name
+     * @param delta value to add
+     */
+    public static void count(String name, long delta) {
+        instance.counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
+    public static void register() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(instance, objectName);
+        } catch (Exception e) {
+            LogUtil.error(ValidatorMetrics.class.getName(), e, "Error registering MBean [" + OBJECT_NAME + "]");
+        }
+    }
+
+    public static void unregister() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            LogUtil.error(ValidatorMetrics.class.getName(), e, "Error unregistering MBean [" + OBJECT_NAME + "]");
+        }
+    }
+
+    @Override
+    public Map<String, TimerSnapshot> getTimers() {
+        final Map<String, TimerSnapshot> snapshots = new TreeMap<>();
+        timers.forEach((name, byElement) -> byElement.forEach((elementId, timer) ->
+                snapshots.put(elementId.isEmpty() ? name : name + "[" + elementId + "]", timer.snapshot())));
+        return snapshots;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        final Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, adder) -> values.put(name, adder.sum()));
+
+        final LruCache<Object, String> mimeCache = MimeTypeDetector.getCache();
+        values.put("mimeCache.hits", mimeCache.getHitCount());
+        values.put("mimeCache.misses", mimeCache.getMissCount());
+        values.put("mimeCache.evictions", mimeCache.getEvictionCount());
+        values.put("mimeCache.size", (long) mimeCache.size());
+
+        final LruCache<List<String>, Object> specCache = ValidatorSpecs.getCache();
+        values.put("specCache.hits", specCache.getHitCount());
+        values.put("specCache.misses", specCache.getMissCount());
+        values.put("specCache.size", (long) specCache.size());
+        return values;
+    }
+
+    @Override
+    public void reset() {
+        timers.clear();
+        counters.clear();
+    }
+
+    /**
+     * Log-linear latency histogram, each power of two split into 4 buckets (relative error below 25%)
+     */
+    public static class Timer {
+        private final static int BUCKETS = 256;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        public void record(long nanos, boolean failed) {
+            final long value = Math.max(0, nanos);
+            count.increment();
+            if (failed) {
+                failures.increment();
+            }
+            totalNanos.add(value);
+            maxNanos.accumulate(value);
+            histogram.incrementAndGet(bucket(value));
+        }
+
+        public TimerSnapshot snapshot() {
+            final long[] buckets = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = histogram.get(i);
+                total += buckets[i];
+            }
+
+            final long invocations = count.sum();
+            return new TimerSnapshot(invocations,
+                    failures.sum(),
+                    invocations == 0 ? 0 : toMillis(totalNanos.sum() / invocations),
+                    toMillis(percentile(buckets, total, 0.50)),
+                    toMillis(percentile(buckets, total, 0.95)),
+                    toMillis(percentile(buckets, total, 0.99)),
+                    toMillis(maxNanos.get()));
+        }
+
+        static int bucket(long value) {
+            if (value < 4) {
+                return (int) value;
+            }
+            final int exponent = 63 - Long.numberOfLeadingZeros(value);
+            final int sub = (int) ((value >>> (exponent - 2)) & 3);
+            return (exponent - 1) * 4 + sub;
+        }
+
+        static long upperBound(int bucket) {
+            if (bucket < 4) {
+                return bucket;
+            }
+            final int exponent = bucket / 4 + 1;
+            if (exponent >= 62) {
+                return Long.MAX_VALUE;
+            }
+            final int sub = bucket % 4;
+            return ((4L + sub + 1) << (exponent - 2)) - 1;
+        }
+
+        private static long percentile(long[] buckets, long total, double percentile) {
+            if (total == 0) {
+                return 0;
+            }
+
+            final long target = (long) Math.ceil(percentile * total);
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i];
+                if (cumulative >= target) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(buckets.length - 1);
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / 1_000_000d;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import java.util.Map;
+
+/**
+ * JMX view of validator metrics, registered as
+ * <code>com.kinnarastudio.kecakplugins.form.validator:type=ValidatorMetrics</code>
+ */
+public interface ValidatorMetricsMXBean {
+    /**
+     * @return timers keyed by validator or step name, then element ID
+     */
+    Map<String, TimerSnapshot> getTimers();
+
+    /**
+     * @return counters such as cache hits and misses
+     */
+    Map<String, Long> getCounters();
+
+    void reset();
+}
@@ -0,0 +1,91 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.apps.app.service.AppUtil;
+import org.joget.apps.form.model.Element;
+import org.joget.apps.form.model.FormBuilderPalette;
+import org.joget.apps.form.model.FormBuilderPaletteElement;
+import org.joget.apps.form.model.FormData;
+import org.joget.apps.form.model.FormRowSet;
+import org.joget.apps.form.service.FormUtil;
+import org.joget.plugin.base.PluginManager;
+
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * Hidden element rendering the client side rules of every validated field of the form, together with the
+ * browser runtime. Put it once in a form to check its fields before submit.
+ */
+public class ValidatorRulesElement extends Element implements FormBuilderPaletteElement {
+    public final static String LABEL = "Validator Client Rules";
+
+    @Override
+    public String renderTemplate(FormData formData, Map dataModel) {
+        if (FormUtil.isFormBuilderActive()) {
+            return "<div class=\"form-cell\"><label class=\"label\">" + LABEL + "</label></div>";
+        }
+
+        return ClientRules.render(FormUtil.findRootForm(this));
+    }
+
+    /**
+     * Nothing to store
+     */
+    @Override
+    public FormRowSet formatData(FormData formData) {
+        return null;
+    }
+
+    @Override
+    public String getName() {
+        return LABEL;
+    }
+
+    @Override
+    public String getVersion() {
+        PluginManager pluginManager = (PluginManager) AppUtil.getApplicationContext().getBean("pluginManager");
+        ResourceBundle resourceBundle = pluginManager.getPluginMessageBundle(getClassName(), "/messages/BuildNumber");
+        String buildNumber = resourceBundle.getString("buildNumber");
+        return buildNumber;
+    }
+
+    @Override
+    public String getDescription() {
+        return getClass().getPackage().getImplementationTitle();
+    }
+
+    @Override
+    public String getLabel() {
+        return LABEL;
+    }
+
+    @Override
+    public String getClassName() {
+        return getClass().getName();
+    }
+
+    @Override
+    public String getPropertyOptions() {
+        return AppUtil.readPluginResource(getClassName(), "/properties/ValidatorRulesElement.json", null, false, "/messages/ValidatorRulesElement");
+    }
+
+    @Override
+    public String getFormBuilderCategory() {
+        return FormBuilderPalette.CATEGORY_CUSTOM;
+    }
+
+    @Override
+    public int getFormBuilderPosition() {
+        return 100;
+    }
+
+    @Override
+    public String getFormBuilderIcon() {
+        return null;
+    }
+
+    @Override
+    public String getFormBuilderTemplate() {
+        return "<label class='label'>" + LABEL + "</label>";
+    }
+}
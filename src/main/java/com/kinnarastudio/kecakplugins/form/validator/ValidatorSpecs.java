@@ -0,0 +1,126 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.plugin.base.ExtDefaultPlugin;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compiled validator configurations. A spec is a typed, immutable snapshot of a validator's properties,
+ * built once per plugin class and distinct properties and shared by every instance configured the same way.
+ * Like {@link FormValidators}, validators are configured once and never modified afterwards.
+ * Digests of properties are kept by map identity, instances configured with a map already seen
+ * look up their spec without hashing the properties again.
+ * Cache size is set with system property <code>kecak.validators.specCache.size</code>.
+ */
+public final class ValidatorSpecs {
+    private final static int CACHE_SIZE = Integer.getInteger("kecak.validators.specCache.size", 1000);
+
+    private final static LruCache<List<String>, Object> specs = new LruCache<>(CACHE_SIZE, 0);
+
+    private final static LruCache<IdentityKey, String> digests = new LruCache<>(CACHE_SIZE, 0);
+
+    private ValidatorSpecs() {
+    }
+
+    /**
+     * @param plugin   configured plugin
+     * @param compiler builds the spec from plugin's properties
+     * @return spec shared by plugins of the same class and properties
+     */
+    public static <P extends ExtDefaultPlugin, S> S getSpec(P plugin, Function<? super P, ? extends S> compiler) {
+        final List<String> key = List.of(plugin.getClass().getName(), getDigest(plugin.getProperties()));
+        return (S) specs.computeIfAbsent(key, k -> compiler.apply(plugin));
+    }
+
+    private static String getDigest(Map<String, Object> properties) {
+        return digests.computeIfAbsent(new IdentityKey(properties), k -> PropertiesKey.digest(properties));
+    }
+
+    /**
+     * @return spec cache
+     */
+    public static LruCache<List<String>, Object> getCache() {
+        return specs;
+    }
+
+    /**
+     * Drop compiled specs, called when bundle stops
+     */
+    public static void invalidateAll() {
+        specs.invalidateAll();
+        digests.invalidateAll();
+    }
+
+    /**
+     * Spec of one plugin instance, looked up again when the plugin's properties map is replaced or
+     * {@link #clear()} is called. Plugins call {@link #clear()} when their properties are set.
+     *
+     * @param <P> plugin
+     * @param <S> spec
+     */
+    public static final class Memo<P extends ExtDefaultPlugin, S> {
+        private final Function<? super P, ? extends S> compiler;
+
+        private volatile Entry<S> entry;
+
+        public Memo(Function<? super P, ? extends S> compiler) {
+            this.compiler = compiler;
+        }
+
+        public S get(P plugin) {
+            final Map<String, Object> properties = plugin.getProperties();
+            final Entry<S> current = entry;
+            if (current != null && current.properties == properties) {
+                return current.spec;
+            }
+
+            final S spec = getSpec(plugin, compiler);
+            entry = new Entry<>(properties, spec);
+            return spec;
+        }
+
+        /**
+         * Look up the spec again on next {@link #get(ExtDefaultPlugin)}, properties may have been modified in place
+         */
+        public void clear() {
+            final Entry<S> current = entry;
+            entry = null;
+            if (current != null) {
+                digests.invalidate(new IdentityKey(current.properties));
+            }
+        }
+    }
+
+    /**
+     * Compares maps by identity, their content may change
+     */
+    private static final class IdentityKey {
+        private final Map<String, Object> properties;
+
+        IdentityKey(Map<String, Object> properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).properties == properties;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(properties);
+        }
+    }
+
+    private static final class Entry<S> {
+        final Map<String, Object> properties;
+        final S spec;
+
+        Entry(Map<String, Object> properties, S spec) {
+            this.properties = properties;
+            this.spec = spec;
+        }
+    }
+}
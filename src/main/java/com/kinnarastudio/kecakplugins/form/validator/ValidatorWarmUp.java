@@ -0,0 +1,136 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.joget.commons.util.LogUtil;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Background warm-up after bundle start, so the first requests after a deploy do not pay
+ * class loading and cache filling costs. Configured with system properties:
+ * <ul>
+ *     <li><code>kecak.validators.warmUp</code>, <code>false</code> to disable warm-up</li>
+ *     <li><code>kecak.validators.warmUp.dateFormats</code>, comma separated date formats to preload</li>
+ *     <li><code>kecak.validators.warmUp.options</code>, comma separated <code>appId:formDefId:fieldId</code>
+ *     of fields validated by {@link OptionsValueValidator} with options caching enabled</li>
+ * </ul>
+ */
+public final class ValidatorWarmUp {
+    private static final String DEFAULT_DATE_FORMATS = "yyyy-MM-dd,yyyy-MM-dd HH:mm,yyyy-MM-dd HH:mm:ss,dd/MM/yyyy,MM/dd/yyyy";
+
+    private static final long STOP_TIMEOUT = 10000L;
+
+    private static final Object lock = new Object();
+
+    private static Thread thread;
+
+    private ValidatorWarmUp() {
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty("kecak.validators.warmUp"));
+    }
+
+    /**
+     * Start warm-up in a daemon thread, does nothing when disabled
+     */
+    public static void start() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        synchronized (lock) {
+            if (thread == null || !thread.isAlive()) {
+                thread = ValidatorExecutors.daemonThreadFactory("kecak-validators-warmup").newThread(ValidatorWarmUp::run);
+                thread.start();
+            }
+        }
+    }
+
+    /**
+     * Abandon remaining warm-up steps, called when bundle stops before shared caches are released.
+     * Waits for the current step to finish so it does not fill caches after they are released.
+     */
+    public static void stop() {
+        final Thread stopping;
+        synchronized (lock) {
+            stopping = thread;
+            thread = null;
+        }
+
+        if (stopping == null) {
+            return;
+        }
+
+        stopping.interrupt();
+        try {
+            stopping.join(STOP_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (stopping.isAlive()) {
+            LogUtil.warn(ValidatorWarmUp.class.getName(), "Warm-up did not stop within [" + STOP_TIMEOUT + "] ms");
+        }
+    }
+
+    private static void run() {
+        step("Tika detector", MimeTypeDetector::warmUp);
+        step("date time formatters", ValidatorWarmUp::warmUpDateTimeFormats);
+        step("option domains", ValidatorWarmUp::warmUpOptionDomains);
+    }
+
+    private static void step(String name, Runnable runnable) {
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+
+        final long start = System.currentTimeMillis();
+        try {
+            runnable.run();
+            LogUtil.info(ValidatorWarmUp.class.getName(), "Warmed up [" + name + "] in [" + (System.currentTimeMillis() - start) + "] ms");
+        } catch (Exception e) {
+            LogUtil.warn(ValidatorWarmUp.class.getName(), "Warm-up of [" + name + "] failed : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Build formatters with the locale used by {@link DateTimeValidator}, parsing once to load java.time classes
+     */
+    private static void warmUpDateTimeFormats() {
+        final Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        final LocalDateTime now = LocalDateTime.now();
+        getList("kecak.validators.warmUp.dateFormats", DEFAULT_DATE_FORMATS)
+                .takeWhile(s -> !Thread.currentThread().isInterrupted())
+                .forEach(pattern -> {
+                    try {
+                        final DateTimeFormatter formatter = DateTimeFormats.getFormatter(pattern, locale);
+                        DateTimeFormats.parseEpochMillis(formatter, formatter.format(now));
+                    } catch (IllegalArgumentException | DateTimeException e) {
+                        LogUtil.warn(ValidatorWarmUp.class.getName(), "Invalid date format [" + pattern + "] : " + e.getMessage());
+                    }
+                });
+    }
+
+    private static void warmUpOptionDomains() {
+        getList("kecak.validators.warmUp.options", "")
+                .takeWhile(s -> !Thread.currentThread().isInterrupted())
+                .forEach(entry -> {
+                    final String[] field = entry.split(":");
+                    if (field.length != 3 || !OptionsValueValidator.preloadDomain(field[0], null, field[1], field[2])) {
+                        LogUtil.warn(ValidatorWarmUp.class.getName(), "Options of [" + entry + "] are not preloaded");
+                    }
+                });
+    }
+
+    private static Stream<String> getList(String property, String defaultValue) {
+        return Arrays.stream(System.getProperty(property, defaultValue).split(","))
+                .map(String::trim)
+                .filter(Predicate.not(String::isEmpty));
+    }
+}
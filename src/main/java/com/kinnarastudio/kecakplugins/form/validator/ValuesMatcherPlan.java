@@ -0,0 +1,181 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.json.JSONObject;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Immutable, compiled configuration of {@link ValuesMatcherValidator}.
+ *
+ * Values are split and deduplicated once and the match type is resolved to a single predicate.
+ */
+public final class ValuesMatcherPlan {
+    public enum MatchType {
+        ALL, ANY, NONE, REGEX, UNKNOWN
+    }
+
+    private final MatchType matchType;
+    private final Set<String> values;
+    private final Set<String> withValues;
+    private final Pattern pattern;
+    private final String regex;
+    private final Predicate<Set<String>> predicate;
+
+    /**
+     * @param matchType  all, any, none or regex
+     * @param values     semicolon separated values, empty to use element values
+     * @param withValues semicolon separated values to compare with, or regex pattern
+     */
+    public ValuesMatcherPlan(String matchType, String values, String withValues) {
+        this.matchType = Arrays.stream(MatchType.values())
+                .filter(t -> t.name().equalsIgnoreCase(matchType))
+                .findFirst()
+                .orElse(MatchType.UNKNOWN);
+
+        this.values = split(values);
+        this.withValues = this.matchType == MatchType.REGEX ? Collections.emptySet() : split(withValues);
+        this.regex = withValues;
+
+        Pattern compiled = null;
+        if (this.matchType == MatchType.REGEX) {
+            try {
+                compiled = Pattern.compile(withValues);
+            } catch (PatternSyntaxException ignored) {
+                // reported when validating
+            }
+        }
+        this.pattern = compiled;
+
+        final Set<String> with = this.withValues;
+        switch (this.matchType) {
+            case ALL:
+                predicate = v -> v.containsAll(with);
+                break;
+            case ANY:
+                predicate = v -> with.stream().anyMatch(v::contains);
+                break;
+            case NONE:
+                predicate = v -> with.stream().noneMatch(v::contains);
+                break;
+            default:
+                predicate = v -> false;
+        }
+    }
+
+    /**
+     * @param values values to check
+     * @return result of all, any or none matching; always false for regex or unknown match type
+     */
+    public boolean test(Set<String> values) {
+        return predicate.test(values);
+    }
+
+    public MatchType getMatchType() {
+        return matchType;
+    }
+
+    /**
+     * @return configured values, empty if element values should be used
+     */
+    public Set<String> getValues() {
+        return values;
+    }
+
+    public Set<String> getWithValues() {
+        return withValues;
+    }
+
+    /**
+     * @return compiled pattern, or null if match type is not regex or pattern is invalid
+     */
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    public String getRegex() {
+        return regex;
+    }
+
+    /**
+     * @param errorMessage message shown when rule fails
+     * @return client rule descriptor, null if match type is unknown, pattern is invalid or
+     * pattern may behave differently in the browser
+     */
+    public JSONObject toClientRule(String errorMessage) {
+        if (matchType == MatchType.UNKNOWN || (matchType == MatchType.REGEX && (pattern == null || !isPortableRegex(regex)))) {
+            return null;
+        }
+
+        final JSONObject rule = new JSONObject();
+        rule.put("type", "valuesMatcher");
+        rule.put("matchType", matchType.name().toLowerCase(Locale.ROOT));
+        rule.put("values", values);
+        if (matchType == MatchType.REGEX) {
+            rule.put("regex", regex);
+        } else {
+            rule.put("withValues", withValues);
+        }
+        rule.put("message", errorMessage);
+        return rule;
+    }
+
+    /**
+     * Whether the pattern stays within the subset Java and JavaScript (without flags) read the same way.
+     * Rejects Java-only escapes such as <code>\p{L}</code>, <code>\h</code> or <code>\Q..\E</code>,
+     * class intersection, nested classes, a leading <code>]</code> in a class, possessive quantifiers and inline flags.
+     *
+     * @param regex Java pattern
+     * @return true if the browser can evaluate the pattern
+     */
+    static boolean isPortableRegex(String regex) {
+        if (regex == null) {
+            return false;
+        }
+
+        boolean inClass = false;
+        for (int i = 0, length = regex.length(); i < length; i++) {
+            final char c = regex.charAt(i);
+            final char next = i + 1 < length ? regex.charAt(i + 1) : 0;
+            if (c == '\\') {
+                if (next == 0 || "pPhHQEAZzGRXvVea0".indexOf(next) >= 0 || (next == 'x' && i + 2 < length && regex.charAt(i + 2) == '{')) {
+                    return false;
+                }
+                i++;
+            } else if (inClass) {
+                if (c == '[' || (c == '&' && next == '&')) {
+                    return false;
+                } else if (c == ']') {
+                    inClass = false;
+                }
+            } else if (c == '[') {
+                inClass = true;
+                if (next == '^') {
+                    i++;
+                }
+                // literal in Java, empty class in JavaScript
+                if (i + 1 < length && regex.charAt(i + 1) == ']') {
+                    return false;
+                }
+            } else if (c == '(' && next == '?') {
+                final char group = i + 2 < length ? regex.charAt(i + 2) : 0;
+                if (":=!<".indexOf(group) < 0) {
+                    return false;
+                }
+                i++;
+            } else if ("*+?}".indexOf(c) >= 0 && next == '+') {
+                return false;
+            }
+        }
+        return !inClass;
+    }
+
+    private static Set<String> split(String value) {
+        if (value == null || value.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(value.split(";"))));
+    }
+}
@@ -4,21 +4,51 @@ import org.joget.apps.app.service.AppUtil;
 import org.joget.apps.form.model.Element;
 import org.joget.apps.form.model.FormData;
 import org.joget.apps.form.model.FormValidator;
+import org.joget.commons.util.LogUtil;
 import org.joget.commons.util.ResourceBundleUtil;
 import org.joget.plugin.base.PluginManager;
+import org.json.JSONObject;
 
 import java.util.*;
-import java.util.function.Predicate;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
-public class ValuesMatcherValidator extends FormValidator {
+public class ValuesMatcherValidator extends FormValidator implements BatchValidator, ClientRuleProvider {
     public final static String LABEL = "Values Matcher Validator";
 
+    private final static Pattern HASH_VARIABLE = Pattern.compile("#[^#\\s]+#");
+
+    /**
+     * Plans of configurations containing hash variables change with every user or record, keep them apart and short-lived
+     */
+    private final static LruCache<List<String>, ValuesMatcherPlan> resolvedPlans = new LruCache<>(1024, 60L * 1000L);
+
+    private final ValidatorSpecs.Memo<ValuesMatcherValidator, Spec> spec = new ValidatorSpecs.Memo<>(Spec::new);
+
     @Override
     public boolean validate(Element element, FormData formData, String[] elementValues) {
-        final Collection<String> values = ifEmpty(getValues(), () -> List.of(elementValues));
-        final Collection<String> withValues = getWithValues();
+        return ValidatorMetrics.measure(this, element, () -> doValidate(element, formData, elementValues));
+    }
+
+    protected boolean doValidate(Element element, FormData formData, String[] elementValues) {
+        return doValidate(element, formData, elementValues, getPlan());
+    }
+
+    /**
+     * Plan is compiled, and hash variables resolved, once for all rows
+     */
+    @Override
+    public RowValidator prepareBatch(Element element) {
+        final ValuesMatcherPlan plan = getPlan();
+        return (formData, values) -> doValidate(element, formData, values, plan);
+    }
+
+    protected boolean doValidate(Element element, FormData formData, String[] elementValues, ValuesMatcherPlan plan) {
+        final Set<String> values = plan.getValues().isEmpty()
+                ? new HashSet<>(List.of(elementValues))
+                : plan.getValues();
         final String elementId = element.getPropertyString("id");
 
         if(values.isEmpty()) {
@@ -27,21 +57,14 @@ public class ValuesMatcherValidator extends FormValidator {
         }
 
         final boolean valid;
-        if(isAllMatch()) {
-            valid = values.containsAll(withValues);
-        }else if (isAnyMatch()) {
-            valid = withValues.stream().anyMatch(values::contains);
-        } else if(isNoneMatch()) {
-            valid = withValues.stream().noneMatch(values::contains);
-        } else if(isRegexMatch()) {
-            final String pattern = getRegexPattern();
-            valid = values.stream().allMatch(s -> s.matches(pattern));
+        if(plan.getMatchType() == ValuesMatcherPlan.MatchType.REGEX) {
+            valid = matchesRegex(elementId, plan, values);
         } else {
-            valid = false;
+            valid = plan.test(values);
         }
 
         if(!valid) {
-            formData.addFormError(elementId, getErrorMessage());
+            formData.addFormError(elementId, getSpec().errorMessage);
         }
 
         return valid;
@@ -80,64 +103,214 @@ public class ValuesMatcherValidator extends FormValidator {
         return AppUtil.readPluginResource(getClassName(), "/properties/ValuesMatcherValidator.json", null, true, "/messages/ValuesMatcherValidator");
     }
 
-    protected Collection<String> getValues() {
-        return Optional.of("values")
-                .map(this::getPropertyString)
-                .filter(Predicate.not(String::isEmpty))
-                .map(s -> s.split(";"))
-                .stream()
-                .flatMap(Arrays::stream)
-                .collect(Collectors.toSet());
+    protected String getMatchType() {
+        return getPropertyString("matchType");
     }
 
-    protected Collection<String> getWithValues() {
-        return Optional.of("withValues")
-                .map(this::getPropertyString)
-                .filter(Predicate.not(String::isEmpty))
-                .map(s -> s.split(";"))
-                .stream()
-                .flatMap(Arrays::stream)
-                .collect(Collectors.toList());
+    /**
+     * @deprecated use {@link ValuesMatcherPlan#getValues()} of {@link #getPlan()}
+     */
+    @Deprecated
+    protected Collection<String> getValues() {
+        return getPlan().getValues();
     }
 
-    protected String getMatchType() {
-        return getPropertyString("matchType");
+    /**
+     * @deprecated use {@link ValuesMatcherPlan#getWithValues()} of {@link #getPlan()}
+     */
+    @Deprecated
+    protected Collection<String> getWithValues() {
+        return new ArrayList<>(getPlan().getWithValues());
     }
 
+    /**
+     * @deprecated use {@link ValuesMatcherPlan#getMatchType()} of {@link #getPlan()}
+     */
+    @Deprecated
     protected boolean isAllMatch() {
-        return "all".equalsIgnoreCase(getMatchType());
+        return getPlan().getMatchType() == ValuesMatcherPlan.MatchType.ALL;
     }
 
+    /**
+     * @deprecated use {@link ValuesMatcherPlan#getMatchType()} of {@link #getPlan()}
+     */
+    @Deprecated
     protected boolean isAnyMatch() {
-        return "any".equalsIgnoreCase(getMatchType());
+        return getPlan().getMatchType() == ValuesMatcherPlan.MatchType.ANY;
     }
 
+    /**
+     * @deprecated use {@link ValuesMatcherPlan#getMatchType()} of {@link #getPlan()}
+     */
+    @Deprecated
     protected boolean isNoneMatch() {
-        return "none".equalsIgnoreCase(getMatchType());
+        return getPlan().getMatchType() == ValuesMatcherPlan.MatchType.NONE;
     }
 
+    /**
+     * @deprecated use {@link ValuesMatcherPlan#getMatchType()} of {@link #getPlan()}
+     */
+    @Deprecated
     protected boolean isRegexMatch() {
-        return "regex".equalsIgnoreCase(getMatchType());
+        return getPlan().getMatchType() == ValuesMatcherPlan.MatchType.REGEX;
     }
 
+    /**
+     * @deprecated use {@link ValuesMatcherPlan#getRegex()} of {@link #getPlan()}
+     */
+    @Deprecated
     protected String getRegexPattern() {
-        return getPropertyString("withValues");
+        return getPlan().getRegex();
     }
 
-    protected String getErrorMessage() {
-        return getPropertyString("errorMessage");
+    /**
+     * @return compiled pattern
+     * @throws PatternSyntaxException if pattern is invalid
+     * @deprecated use {@link ValuesMatcherPlan#getPattern()} of {@link #getPlan()}
+     */
+    @Deprecated
+    protected Pattern getCompiledRegexPattern() {
+        return Optional.ofNullable(getPlan().getPattern()).orElseGet(() -> Pattern.compile(getRegexPattern()));
+    }
+
+    /**
+     * @deprecated use {@link #matchesRegex(String, ValuesMatcherPlan, Collection)}
+     */
+    @Deprecated
+    protected boolean matchesRegex(String elementId, Collection<String> values) {
+        return matchesRegex(elementId, getPlan(), values);
     }
 
+    /**
+     * @deprecated no longer used
+     */
+    @Deprecated
     protected <T> T[] ifEmpty(T[] values, Supplier<T[]> ifEmpty) {
         return values.length == 0 ? ifEmpty.get() : values;
     }
 
+    /**
+     * @deprecated no longer used
+     */
+    @Deprecated
     protected <T, V extends Collection<T>> V ifEmpty(V values, Supplier<V> ifEmpty) {
         return values.isEmpty() ? ifEmpty.get() : values;
     }
 
+    /**
+     * All values have to match the regex pattern. Matching which exceeds the time limit fails the validation.
+     *
+     * @param elementId element ID
+     * @param plan      compiled plan
+     * @param values    values
+     * @return true if all values match
+     */
+    protected boolean matchesRegex(String elementId, ValuesMatcherPlan plan, Collection<String> values) {
+        final Pattern pattern = plan.getPattern();
+        if (pattern == null) {
+            LogUtil.warn(getClassName(), "Element [" + elementId + "] : Invalid regex pattern [" + plan.getRegex() + "]");
+            return false;
+        }
+
+        final long timeout = getSpec().regexTimeout;
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        try {
+            return values.stream()
+                    .allMatch(s -> pattern.matcher(timeout > 0 ? new BoundedCharSequence(s, deadline) : s).matches());
+        } catch (BoundedCharSequence.TimeoutException e) {
+            LogUtil.warn(getClassName(), "Element [" + elementId + "] : Regex pattern [" + pattern.pattern() + "] exceeded time limit [" + timeout + "] ms");
+            return false;
+        }
+    }
+
+    /**
+     * @return compiled configuration
+     */
+    protected Spec getSpec() {
+        return spec.get(this);
+    }
+
+    @Override
+    public void setProperty(String property, Object value) {
+        super.setProperty(property, value);
+        spec.clear();
+    }
+
+    @Override
+    public void setProperties(Map<String, Object> properties) {
+        super.setProperties(properties);
+        spec.clear();
+    }
+
+    /**
+     * Plan is compiled once per configuration.
+     * Hash variables in values are resolved first and the resolved plan is cached separately.
+     *
+     * @return compiled plan
+     */
+    protected ValuesMatcherPlan getPlan() {
+        final Spec spec = getSpec();
+        if (spec.plan != null) {
+            return spec.plan;
+        }
+
+        final String resolvedValues = AppUtil.processHashVariable(spec.values, null, null, null);
+        final String resolvedWithValues = AppUtil.processHashVariable(spec.withValues, null, null, null);
+        return resolvedPlans.computeIfAbsent(List.of(spec.matchType, resolvedValues, resolvedWithValues),
+                k -> new ValuesMatcherPlan(spec.matchType, resolvedValues, resolvedWithValues));
+    }
+
+    /**
+     * @return time limit to match all values in milliseconds, 0 for no limit
+     */
+    protected long getRegexTimeout() {
+        try {
+            return Long.parseLong(getPropertyString("regexTimeout"));
+        } catch (NumberFormatException e) {
+            return 1000L;
+        }
+    }
+
+    protected String getErrorMessage() {
+        return getPropertyString("errorMessage");
+    }
+
     @Override
     public String getElementDecoration() {
         return "*";
     }
+
+    /**
+     * Configuration with hash variables is resolved per request and may hold user specific values, it is only checked on server
+     */
+    @Override
+    public JSONObject getClientRule(Element element) {
+        final Spec spec = getSpec();
+        return spec.plan == null ? null : spec.plan.toClientRule(spec.errorMessage);
+    }
+
+    /**
+     * Immutable snapshot of the validator's properties, the plan is compiled unless values contain hash variables
+     */
+    protected static class Spec {
+        private final String matchType;
+        private final String values;
+        private final String withValues;
+        private final long regexTimeout;
+        private final String errorMessage;
+
+        // null when plan depends on hash variables
+        private final ValuesMatcherPlan plan;
+
+        Spec(ValuesMatcherValidator validator) {
+            this.matchType = validator.getMatchType();
+            this.values = validator.getPropertyString("values");
+            this.withValues = validator.getPropertyString("withValues");
+            this.regexTimeout = validator.getRegexTimeout();
+            this.errorMessage = validator.getErrorMessage();
+            this.plan = HASH_VARIABLE.matcher(values).find() || HASH_VARIABLE.matcher(withValues).find()
+                    ? null
+                    : new ValuesMatcherPlan(matchType, values, withValues);
+        }
+    }
 }
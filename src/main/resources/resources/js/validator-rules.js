@@ -0,0 +1,310 @@
+/*
+ * Client side checks of Kecak validators.
+ *
+ * The form's Validator Client Rules element renders each field's rule as
+ * <script type="application/json" class="kecak-validator-rule" data-field="..."> followed by this runtime.
+ * Rules are evaluated on change and before submit; a submit is only blocked when a rule certainly fails.
+ * Anything the runtime cannot decide is left to server side validation.
+ */
+(function (window, document) {
+    if (window.KecakValidatorRules) {
+        return;
+    }
+
+    var UNKNOWN = null;
+
+    var evaluators = {
+        valuesMatcher: function (rule, inputValues) {
+            var values = rule.values && rule.values.length ? rule.values : inputValues;
+            if (!values.length) {
+                values = [''];
+            }
+
+            if (rule.matchType === 'regex') {
+                var pattern;
+                try {
+                    // Java's Matcher.matches() matches the whole value
+                    pattern = new RegExp('^(?:' + rule.regex + ')$');
+                } catch (e) {
+                    return UNKNOWN;
+                }
+                return values.every(function (value) {
+                    return pattern.test(value);
+                });
+            }
+
+            var contains = function (value) {
+                return values.indexOf(value) >= 0;
+            };
+            var withValues = rule.withValues || [];
+            switch (rule.matchType) {
+                case 'all':
+                    return withValues.every(contains);
+                case 'any':
+                    return withValues.some(contains);
+                case 'none':
+                    return !withValues.some(contains);
+                default:
+                    return UNKNOWN;
+            }
+        },
+
+        dateTime: function (rule, inputValues) {
+            var values = inputValues.filter(function (value) {
+                return value !== '';
+            });
+            if (!values.length) {
+                return false;
+            }
+            if (!rule.multiValue) {
+                values = values.slice(0, 1);
+            }
+
+            var now = Date.now() + rule.zoneOffset;
+            var from = rule.from === null ? now : rule.from;
+            var to = rule.to === null ? now : rule.to;
+
+            var result = true;
+            for (var i = 0; i < values.length; i++) {
+                var date = parseDate(rule.format, values[i]);
+                if (date === UNKNOWN) {
+                    return UNKNOWN;
+                }
+
+                switch (rule.operator) {
+                    case 'exact':
+                        result = result && date === from;
+                        break;
+                    case 'after':
+                        result = result && date > from;
+                        break;
+                    case 'before':
+                        result = result && date < to;
+                        break;
+                    case 'between':
+                        result = result && date > from && date < to;
+                        break;
+                    default:
+                        return UNKNOWN;
+                }
+            }
+            return result;
+        }
+    };
+
+    /**
+     * Parse numeric date and time following a SimpleDateFormat pattern into wall-clock milliseconds,
+     * null if value does not follow the pattern or a field is out of range
+     */
+    function parseDate(format, value) {
+        var fields = {y: 1970, M: 1, d: 1, H: 0, h: 0, m: 0, s: 0, S: 0, a: null};
+        var position = 0;
+        var i = 0;
+        while (i < format.length) {
+            var c = format.charAt(i);
+            if (c === '\'') {
+                var end = format.indexOf('\'', i + 1);
+                var literal = end === i + 1 ? '\'' : format.substring(i + 1, end);
+                if (value.substr(position, literal.length) !== literal) {
+                    return UNKNOWN;
+                }
+                position += literal.length;
+                i = end + 1;
+                continue;
+            }
+
+            var count = 1;
+            while (format.charAt(i + count) === c) {
+                count++;
+            }
+
+            if (/[a-zA-Z]/.test(c)) {
+                if (c === 'a') {
+                    var marker = value.substr(position, 2).toUpperCase();
+                    if (marker !== 'AM' && marker !== 'PM') {
+                        return UNKNOWN;
+                    }
+                    fields.a = marker;
+                    position += 2;
+                } else {
+                    // same as DateTimeFormats on server: any number of digits unless followed by another number field,
+                    // e.g. "yyyyMMdd", which takes exactly the pattern length, two digits for "y" and "yy"
+                    var twoDigitYear = c === 'y' && count <= 2;
+                    var abutting = /[yMdHhmsS]/.test(format.charAt(i + count));
+                    var width = twoDigitYear ? 2 : count;
+                    var digits = (abutting ? new RegExp('^\\d{' + width + '}') : /^\d+/).exec(value.substring(position));
+                    if (!digits) {
+                        return UNKNOWN;
+                    }
+                    var number = parseInt(digits[0], 10);
+                    if (twoDigitYear && digits[0].length === 2) {
+                        // resolved within the 100 years starting 80 years before the current year, as on server
+                        var century = new Date().getFullYear() - 80;
+                        number += Math.floor(century / 100) * 100;
+                        if (number < century) {
+                            number += 100;
+                        }
+                    }
+                    fields[c] = number;
+                    position += digits[0].length;
+                }
+            } else {
+                if (value.substr(position, count) !== format.substr(i, count)) {
+                    return UNKNOWN;
+                }
+                position += count;
+            }
+            i += count;
+        }
+
+        var hour = fields.a === null ? fields.H : (fields.h % 12) + (fields.a === 'PM' ? 12 : 0);
+        if (fields.a === null && format.indexOf('h') >= 0) {
+            hour = fields.h % 12;
+        }
+        if (fields.M < 1 || fields.M > 12 || fields.d < 1 || fields.d > 31 || hour > 23 || fields.m > 59 || fields.s > 59) {
+            return UNKNOWN;
+        }
+        return Date.UTC(fields.y, fields.M - 1, fields.d, hour, fields.m, fields.s, fields.S);
+    }
+
+    function getInputValues(cell) {
+        var values = [];
+        var inputs = cell.querySelectorAll('input[name], select[name], textarea[name]');
+        for (var i = 0; i < inputs.length; i++) {
+            var input = inputs[i];
+            if (input.type === 'checkbox' || input.type === 'radio') {
+                if (input.checked) {
+                    values.push(input.value);
+                }
+            } else if (input.tagName === 'SELECT' && input.multiple) {
+                for (var j = 0; j < input.options.length; j++) {
+                    if (input.options[j].selected) {
+                        values.push(input.options[j].value);
+                    }
+                }
+            } else if (input.type !== 'hidden' || inputs.length === 1) {
+                values.push(input.value);
+            }
+        }
+        return values;
+    }
+
+    function parseRule(element) {
+        try {
+            return JSON.parse(element.textContent);
+        } catch (e) {
+            // malformed rule, left to server
+            return null;
+        }
+    }
+
+    function getCell(root, field) {
+        var inputs = root.querySelectorAll('[name]');
+        for (var i = 0; i < inputs.length; i++) {
+            if (inputs[i].name === field) {
+                return inputs[i].closest('.form-cell') || inputs[i].parentNode;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return cells of the root having rules, each with its rules
+     */
+    function getCheckedCells(root, field) {
+        var checked = [];
+        var elements = root.querySelectorAll('script.kecak-validator-rule');
+        for (var i = 0; i < elements.length; i++) {
+            var name = elements[i].getAttribute('data-field');
+            if (field !== undefined && name !== field) {
+                continue;
+            }
+
+            var form = elements[i].closest('form') || root;
+            var cell = getCell(form, name);
+            var rule = parseRule(elements[i]);
+            if (!cell || !rule) {
+                continue;
+            }
+
+            var entry = null;
+            for (var j = 0; j < checked.length; j++) {
+                if (checked[j].cell === cell) {
+                    entry = checked[j];
+                }
+            }
+            if (!entry) {
+                entry = {cell: cell, rules: []};
+                checked.push(entry);
+            }
+            entry.rules.push(rule);
+        }
+        return checked;
+    }
+
+    function showError(cell, message) {
+        var error = cell.querySelector('.kecak-validator-error');
+        if (message === null) {
+            if (error) {
+                error.parentNode.removeChild(error);
+                cell.classList.remove('form-error-cell');
+            }
+            return;
+        }
+
+        if (!error) {
+            error = document.createElement('span');
+            error.className = 'form-error-message kecak-validator-error';
+            cell.appendChild(error);
+        }
+        error.textContent = message;
+        cell.classList.add('form-error-cell');
+    }
+
+    /**
+     * @return false if any rule of the cell fails
+     */
+    function checkCell(cell, rules) {
+        var values = getInputValues(cell);
+        for (var i = 0; i < rules.length; i++) {
+            var evaluator = evaluators[rules[i].type];
+            if (evaluator && evaluator(rules[i], values) === false) {
+                showError(cell, rules[i].message || 'Invalid value');
+                return false;
+            }
+        }
+        showError(cell, null);
+        return true;
+    }
+
+    document.addEventListener('change', function (event) {
+        var target = event.target;
+        if (!target.name || !target.form) {
+            return;
+        }
+
+        var cells = getCheckedCells(target.form, target.name);
+        for (var i = 0; i < cells.length; i++) {
+            checkCell(cells[i].cell, cells[i].rules);
+        }
+    }, true);
+
+    document.addEventListener('submit', function (event) {
+        var cells = getCheckedCells(event.target);
+        var valid = true;
+        for (var i = 0; i < cells.length; i++) {
+            valid = checkCell(cells[i].cell, cells[i].rules) && valid;
+        }
+
+        if (!valid) {
+            event.preventDefault();
+            event.stopImmediatePropagation();
+        }
+    }, true);
+
+    window.KecakValidatorRules = {
+        evaluators: evaluators,
+        parseDate: parseDate,
+        check: checkCell
+    };
+})(window, document);
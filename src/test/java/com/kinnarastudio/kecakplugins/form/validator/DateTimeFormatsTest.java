@@ -0,0 +1,88 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class DateTimeFormatsTest {
+    @Test
+    public void testFormatsTextLikeSimpleDateFormat() {
+        final LocalDateTime dateTime = LocalDateTime.of(2024, 1, 5, 10, 0);
+        assertEquals("05 January 2024", DateTimeFormats.getFormatter("dd MMMMM yyyy", Locale.US).format(dateTime));
+        assertEquals("Friday, 05 Jan", DateTimeFormats.getFormatter("EEEEEE, dd MMM", Locale.US).format(dateTime));
+        assertEquals("MMMMM January", DateTimeFormats.getFormatter("'MMMMM' MMMMM", Locale.US).format(dateTime));
+    }
+
+    @Test
+    public void testParsesLikeSimpleDateFormat() throws Exception {
+        final String[][] cases = {
+                {"yyyy-MM-dd", "2024-01-05"},
+                {"yyyy-MM-dd", "2024-1-5"},
+                {"yyyy-MM-dd", "2024-13-05"},
+                {"yyyy-MM-dd", "2024-02-30"},
+                {"yyyyMMdd", "20240105"},
+                {"dd/MM/yyyy HH:mm", "5/1/2024 9:5"},
+                {"MM/dd", "1/5"},
+                {"hh:mm a", "9:05 PM"},
+                {"HH:mm", "25:00"},
+                {"dd MMMMM yyyy", "5 January 2024"},
+                {"dd/MM/yy", "05/01/99"},
+                {"dd/MM/yy", "05/01/24"},
+                {"dd/MM/yy", "05/01/2024"},
+                {"yy-M-d", "45-1-5"},
+                {"yyMMdd", "990105"},
+                {"EEE, dd MMM yyyy", "Mon, 05 Jan 2024"},
+                {"EEEE dd/MM/yyyy", "Sunday 05/01/2024"},
+                {"HH:mm:ss.SSS", "10:00:00.5"},
+                {"HH:mm:ss.SSS", "10:00:00.050"},
+                {"yyyy-MM-dd'T'HH:mm", "2024-01-05T10:15"},
+                {"''yyyy", "'2024"},
+                {"ddd.MM.yyyy", "005.01.2024"},
+                {"D yyyy", "40 2024"},
+                {"kk:mm", "24:30"}
+        };
+
+        for (String[] c : cases) {
+            final long expected = new SimpleDateFormat(c[0], Locale.US).parse(c[1]).getTime();
+            final long actual = DateTimeFormats.parseEpochMillis(DateTimeFormats.getFormatter(c[0], Locale.US), c[1]);
+            assertEquals(c[0] + " " + c[1], expected, actual);
+        }
+    }
+
+    @Test
+    public void testTrailingTextIsIgnored() throws Exception {
+        final long expected = new SimpleDateFormat("yyyy-MM-dd", Locale.US).parse("2024-01-05").getTime();
+        assertEquals(expected, DateTimeFormats.parseEpochMillis(DateTimeFormats.getFormatter("yyyy-MM-dd", Locale.US), "2024-01-05T10:00"));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testSimpleDateFormatRejectsEmptyPattern() throws ParseException {
+        new SimpleDateFormat("", Locale.US).parse("2024-01-05");
+    }
+
+    @Test(expected = DateTimeParseException.class)
+    public void testEmptyPatternFails() {
+        DateTimeFormats.parseEpochMillis(DateTimeFormats.getFormatter("", Locale.US), "2024-01-05");
+    }
+
+    @Test(expected = DateTimeParseException.class)
+    public void testMismatchFails() {
+        DateTimeFormats.parseEpochMillis(DateTimeFormats.getFormatter("yyyy-MM-dd", Locale.US), "05/01/2024");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPattern() {
+        DateTimeFormats.getFormatter("yyyy-bb", Locale.US);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnterminatedQuote() {
+        DateTimeFormats.getFormatter("yyyy 'at", Locale.US);
+    }
+}
@@ -0,0 +1,76 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LruCacheTest {
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        final LruCache<String, String> cache = new LruCache<>(2, 0);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testExpiredEntryIsAbsent() throws InterruptedException {
+        final LruCache<String, String> cache = new LruCache<>(10, 0);
+        cache.put("a", "1", 1);
+        cache.put("b", "2");
+        Thread.sleep(5);
+
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+    }
+
+    @Test
+    public void testComputeIfAbsent() {
+        final LruCache<String, String> cache = new LruCache<>(10, 0);
+        final AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("A", cache.computeIfAbsent("a", k -> {
+            calls.incrementAndGet();
+            return k.toUpperCase();
+        }));
+        assertEquals("A", cache.computeIfAbsent("a", k -> {
+            calls.incrementAndGet();
+            return k.toUpperCase();
+        }));
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testNullIsNotCached() {
+        final LruCache<String, String> cache = new LruCache<>(10, 0);
+        assertNull(cache.computeIfAbsent("a", k -> null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidate() {
+        final LruCache<String, String> cache = new LruCache<>(10, 0);
+        cache.put("a1", "1");
+        cache.put("a2", "2");
+        cache.put("b1", "3");
+
+        cache.invalidateIf(k -> k.startsWith("a"));
+        assertNull(cache.get("a1"));
+        assertNull(cache.get("a2"));
+        assertEquals("3", cache.get("b1"));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+}
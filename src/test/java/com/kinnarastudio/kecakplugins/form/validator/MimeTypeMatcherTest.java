@@ -0,0 +1,42 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MimeTypeMatcherTest {
+    @Test
+    public void testExactType() {
+        final MimeTypeMatcher matcher = MimeTypeMatcher.compile(List.of("application/pdf"), Collections.emptyList());
+        assertTrue(matcher.test("application/pdf"));
+        assertTrue(matcher.test(" Application/PDF "));
+        assertFalse(matcher.test("application/pdfx"));
+        assertFalse(matcher.test("image/png"));
+    }
+
+    @Test
+    public void testWildcardFamily() {
+        final MimeTypeMatcher matcher = MimeTypeMatcher.compile(List.of("image/*", "application/vnd.openxmlformats-*"), Collections.emptyList());
+        assertTrue(matcher.test("image/png"));
+        assertTrue(matcher.test("application/vnd.openxmlformats-officedocument.wordprocessingml.document"));
+        assertFalse(matcher.test("imagex/png"));
+        assertFalse(matcher.test("application/msword"));
+    }
+
+    @Test
+    public void testEmptyIncludesAcceptEverything() {
+        final MimeTypeMatcher matcher = MimeTypeMatcher.compile(Collections.emptyList(), Collections.emptyList());
+        assertTrue(matcher.test("application/octet-stream"));
+    }
+
+    @Test
+    public void testExcludesWin() {
+        final MimeTypeMatcher matcher = MimeTypeMatcher.compile(List.of("*/*"), List.of("application/x-msdownload", "text/*"));
+        assertTrue(matcher.test("image/png"));
+        assertFalse(matcher.test("application/x-msdownload"));
+        assertFalse(matcher.test("text/html"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PackedOptionsDomainTest {
+    @Test
+    public void testContains() {
+        final List<String> values = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            values.add("option-" + i);
+        }
+        values.add("\u00fcn\u00efc\u00f6d\u00e9");
+        values.add("");
+
+        final PackedOptionsDomain domain = new PackedOptionsDomain(values);
+        for (String value : values) {
+            assertTrue(value, domain.contains(value));
+        }
+        assertFalse(domain.contains("option-10000"));
+        assertFalse(domain.contains("option-"));
+        assertFalse(domain.contains("unicode"));
+        assertFalse(domain.contains(null));
+    }
+
+    @Test
+    public void testDuplicatesAreRemoved() {
+        final PackedOptionsDomain domain = new PackedOptionsDomain(List.of("b", "a", "b", "c", "a"));
+        assertEquals(3, domain.size());
+    }
+
+    @Test
+    public void testEmpty() {
+        final PackedOptionsDomain domain = new PackedOptionsDomain(Collections.emptyList());
+        assertEquals(0, domain.size());
+        assertFalse(domain.contains("a"));
+    }
+
+    @Test
+    public void testDigestEqualsHashDomain() {
+        final List<String> values = List.of("c", "a", "b");
+        assertEquals(new HashOptionsDomain(values).getDigest(), new PackedOptionsDomain(values).getDigest());
+    }
+}
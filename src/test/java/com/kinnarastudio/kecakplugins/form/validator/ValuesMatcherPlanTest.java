@@ -0,0 +1,68 @@
+package com.kinnarastudio.kecakplugins.form.validator;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ValuesMatcherPlanTest {
+    @Test
+    public void testMatchTypes() {
+        assertTrue(new ValuesMatcherPlan("all", "", "a;b").test(Set.of("a", "b", "c")));
+        assertFalse(new ValuesMatcherPlan("all", "", "a;d").test(Set.of("a", "b", "c")));
+        assertTrue(new ValuesMatcherPlan("ANY", "", "x;b").test(Set.of("a", "b")));
+        assertFalse(new ValuesMatcherPlan("any", "", "x;y").test(Set.of("a", "b")));
+        assertTrue(new ValuesMatcherPlan("none", "", "x;y").test(Set.of("a", "b")));
+        assertFalse(new ValuesMatcherPlan("none", "", "x;a").test(Set.of("a", "b")));
+        assertFalse(new ValuesMatcherPlan("unknown", "", "a").test(Set.of("a")));
+    }
+
+    @Test
+    public void testValuesAreSplit() {
+        final ValuesMatcherPlan plan = new ValuesMatcherPlan("all", "a;b;a", "c");
+        assertEquals(Set.of("a", "b"), plan.getValues());
+        assertEquals(Set.of("c"), plan.getWithValues());
+        assertTrue(new ValuesMatcherPlan("all", "", "").getValues().isEmpty());
+    }
+
+    @Test
+    public void testRegex() {
+        final ValuesMatcherPlan plan = new ValuesMatcherPlan("regex", "", "[0-9]+;x");
+        assertEquals(ValuesMatcherPlan.MatchType.REGEX, plan.getMatchType());
+        assertNotNull(plan.getPattern());
+        assertTrue(plan.getWithValues().isEmpty());
+
+        assertNull(new ValuesMatcherPlan("regex", "", "[0-9").getPattern());
+    }
+
+    @Test
+    public void testClientRule() {
+        final JSONObject rule = new ValuesMatcherPlan("any", "", "a;b").toClientRule("message");
+        assertEquals("valuesMatcher", rule.optString("type"));
+        assertEquals("any", rule.optString("matchType"));
+        assertEquals("message", rule.optString("message"));
+
+        assertNotNull(new ValuesMatcherPlan("regex", "", "\\d{3}-[a-z]+").toClientRule("message"));
+        assertNull(new ValuesMatcherPlan("regex", "", "[0-9").toClientRule("message"));
+        assertNull(new ValuesMatcherPlan("unknown", "", "a").toClientRule("message"));
+    }
+
+    @Test
+    public void testPortableRegex() {
+        assertTrue(ValuesMatcherPlan.isPortableRegex("[a-z]+"));
+        assertTrue(ValuesMatcherPlan.isPortableRegex("(?:ab)+\\++"));
+        assertTrue(ValuesMatcherPlan.isPortableRegex("(?<=a)b+?"));
+
+        assertFalse(ValuesMatcherPlan.isPortableRegex("\\p{L}+"));
+        assertFalse(ValuesMatcherPlan.isPortableRegex("\\h"));
+        assertFalse(ValuesMatcherPlan.isPortableRegex("\\Qa.b\\E"));
+        assertFalse(ValuesMatcherPlan.isPortableRegex("[a-z&&[^e]]"));
+        assertFalse(ValuesMatcherPlan.isPortableRegex("[]a]"));
+        assertFalse(ValuesMatcherPlan.isPortableRegex("a++"));
+        assertFalse(ValuesMatcherPlan.isPortableRegex("x{2}+"));
+        assertFalse(ValuesMatcherPlan.isPortableRegex("(?i)abc"));
+        assertFalse(ValuesMatcherPlan.isPortableRegex("\\x{41}"));
+    }
+}